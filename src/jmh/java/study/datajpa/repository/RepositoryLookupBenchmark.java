@@ -0,0 +1,100 @@
+package study.datajpa.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberController.findMember 와 같은 단건 조회를 Spring Data 리포지토리 프록시와 MemberDirectRepository 로 비교한다.
+ * <p>
+ * 요청 처리(OSIV)처럼 EntityManager 를 스레드에 묶어 두고, 매번 1차 캐시를 비워 DB 까지 조회한다.
+ * ex) ./gradlew jmh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryLookupBenchmark {
+
+    private static final int MEMBERS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager em;
+    private MemberRepository memberRepository;
+    private MemberDirectRepository memberDirectRepository;
+    private final long[] ids = new long[MEMBERS];
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:repository-benchmark;DB_CLOSE_DELAY=-1",
+                        "decorator.datasource.p6spy.enable-logging=false",
+                        "logging.level.org.hibernate.SQL=warn")
+                .run();
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberDirectRepository = context.getBean(MemberDirectRepository.class);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < MEMBERS; i++) {
+                ids[i] = memberRepository.save(new Member("member" + i, i % 100)).getId();
+            }
+        });
+
+        em = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(em));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public Member repositoryProxy() {
+        em.clear();
+        return memberRepository.findById(nextId()).get();
+    }
+
+    @Benchmark
+    public Member directRepository() {
+        em.clear();
+        return memberDirectRepository.findById(nextId()).get();
+    }
+
+    private long nextId() {
+        return ids[random.nextInt(MEMBERS)];
+    }
+}
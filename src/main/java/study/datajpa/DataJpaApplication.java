@@ -2,6 +2,7 @@ package study.datajpa;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
@@ -15,7 +16,10 @@ import java.util.UUID;
 public class DataJpaApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(DataJpaApplication.class, args);
+        SpringApplication application = new SpringApplication(DataJpaApplication.class);
+        // 기동 단계별 소요 시간을 기록한다. (StartupTimingReporter)
+        application.setApplicationStartup(new BufferingApplicationStartup(10_000));
+        application.run(args);
     }
 
     @Bean
@@ -0,0 +1,64 @@
+package study.datajpa.config;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.support.CacheBusProperties;
+import study.datajpa.support.CacheInvalidationBus;
+import study.datajpa.support.CacheInvalidationEventListener;
+import study.datajpa.support.CacheInvalidationListener;
+import study.datajpa.support.InvalidationTransport;
+import study.datajpa.support.UdpInvalidationTransport;
+
+import javax.persistence.EntityManagerFactory;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 노드 사이 캐시 무효화 설정 (datajpa.cache-bus.enabled=true)
+ * <p>
+ * 이 노드의 캐시(검색 색인, 컬럼형 스냅샷 등 CacheInvalidationListener 빈)를 다른 노드의 변경에 맞춰 무효화한다.
+ * 전송은 기본으로 peers 에 UDP 로 보낸다. InvalidationTransport 빈을 등록하면 그걸 쓴다.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheBusProperties.class)
+@ConditionalOnProperty(prefix = "datajpa.cache-bus", name = "enabled", havingValue = "true")
+public class CacheBusConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public InvalidationTransport invalidationTransport(CacheBusProperties properties) {
+        List<InetSocketAddress> peers = properties.getPeers().stream()
+                .map(peer -> new InetSocketAddress(peer.substring(0, peer.lastIndexOf(':')),
+                        Integer.parseInt(peer.substring(peer.lastIndexOf(':') + 1))))
+                .collect(Collectors.toList());
+        return new UdpInvalidationTransport(properties.getPort(), peers);
+    }
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(InvalidationTransport transport,
+                                                     ObjectProvider<CacheInvalidationListener> listeners,
+                                                     CacheBusProperties properties) {
+        return new CacheInvalidationBus(transport, listeners.orderedStream().collect(Collectors.toList()), properties);
+    }
+
+    @Bean
+    public CacheInvalidationEventListener cacheInvalidationEventListener(CacheInvalidationBus bus,
+                                                                         EntityManagerFactory entityManagerFactory) {
+        CacheInvalidationEventListener listener = new CacheInvalidationEventListener(bus);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        return listener;
+    }
+}
@@ -0,0 +1,56 @@
+package study.datajpa.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+
+/**
+ * spring.datasource 를 primary 로, datajpa.replica 를 replica 로 사용하는 라우팅 설정
+ * <p>
+ * 로컬에서는 두 개의 H2 인스턴스로 확인할 수 있다.
+ * ex) datajpa.replica.url=jdbc:h2:tcp://localhost/~/datajpa-replica
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(prefix = "datajpa.replica", name = "url")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, ReplicaProperties replicaProperties) {
+        DataSource primary = dataSourceProperties.initializeDataSourceBuilder().build();
+        DataSource replica = replicaDataSource(replicaProperties);
+
+        ReplicationRoutingDataSource routingDataSource = new ReplicationRoutingDataSource(
+                primary, replica,
+                replicaProperties.getLagToleranceMillis(),
+                replicaProperties.getRetryAfterMillis());
+        routingDataSource.afterPropertiesSet();
+
+        // 트랜잭션의 readOnly 여부가 결정된 뒤에 커넥션을 얻도록 지연시킨다.
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReplicaProperties replicaProperties) {
+        return new FilterRegistrationBean<>(new ReadYourWritesFilter(replicaProperties.getClientHeader()));
+    }
+
+    private DataSource replicaDataSource(ReplicaProperties properties) {
+        DataSourceBuilder<?> builder = DataSourceBuilder.create()
+                .url(properties.getUrl())
+                .username(properties.getUsername())
+                .password(properties.getPassword());
+        if (StringUtils.hasText(properties.getDriverClassName())) {
+            builder.driverClassName(properties.getDriverClassName());
+        }
+        return builder.build();
+    }
+}
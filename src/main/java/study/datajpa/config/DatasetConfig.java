@@ -0,0 +1,47 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import study.datajpa.support.DatasetGenerator;
+import study.datajpa.support.DatasetProperties;
+
+import javax.sql.DataSource;
+
+/**
+ * 기동 시 부하 테스트용 데이터 생성 (datajpa.dataset.enabled=true)
+ * <p>
+ * ex) ./gradlew bootRun --args='--datajpa.dataset.enabled=true --datajpa.dataset.members=10000000'
+ * 이후 ./gradlew loadTest 로 부하를 건다. (LoadTestDriver)
+ * <p>
+ * 샤드를 지정하지 않고 적재하므로 샤딩과 함께 쓸 수 없다.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(DatasetProperties.class)
+@ConditionalOnProperty(prefix = "datajpa.dataset", name = "enabled", havingValue = "true")
+public class DatasetConfig {
+
+    @Bean
+    public DatasetGenerator datasetGenerator(DataSource dataSource, DatasetProperties properties, Environment environment) {
+        if (environment.getProperty("datajpa.sharding.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("datajpa.dataset can not be used with datajpa.sharding");
+        }
+        return new DatasetGenerator(dataSource, properties);
+    }
+
+    @Bean
+    public ApplicationRunner datasetRunner(DatasetGenerator datasetGenerator, DatasetProperties properties) {
+        return args -> {
+            if (!properties.isForce() && !datasetGenerator.isMemberTableEmpty()) {
+                log.info("dataset generation skipped: member table is not empty (datajpa.dataset.force=true to append)");
+                return;
+            }
+            datasetGenerator.generate();
+        };
+    }
+}
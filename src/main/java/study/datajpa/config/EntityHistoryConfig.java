@@ -0,0 +1,57 @@
+package study.datajpa.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.support.EntityHistoryListener;
+import study.datajpa.support.EntityHistoryProperties;
+import study.datajpa.support.EntityHistoryStore;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+/**
+ * Member / Team 변경 이력을 월별 파티션 테이블에 남긴다. (datajpa.history.enabled=true)
+ * <p>
+ * 파티션 관리와 asOf 조회는 샤드나 테넌트를 지정하지 않고 기본 스키마에서 실행되므로 샤딩, 멀티 테넌시와 함께 쓸 수 없다.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(EntityHistoryProperties.class)
+@ConditionalOnProperty(prefix = "datajpa.history", name = "enabled", havingValue = "true")
+public class EntityHistoryConfig {
+
+    @Bean
+    public EntityHistoryStore entityHistoryStore(DataSource dataSource, ObjectMapper objectMapper, EntityManager em,
+                                                 PlatformTransactionManager transactionManager,
+                                                 EntityHistoryProperties properties,
+                                                 EntityManagerFactory entityManagerFactory,
+                                                 Environment environment) {
+        if (environment.getProperty("datajpa.tenancy.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("datajpa.history can not be used with datajpa.tenancy");
+        }
+        if (environment.getProperty("datajpa.sharding.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("datajpa.history can not be used with datajpa.sharding");
+        }
+        EntityHistoryStore store = new EntityHistoryStore(dataSource, objectMapper, em, transactionManager, properties);
+        store.maintain();
+
+        EntityHistoryListener listener = new EntityHistoryListener(store);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        return store;
+    }
+}
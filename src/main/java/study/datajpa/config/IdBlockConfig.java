@@ -0,0 +1,34 @@
+package study.datajpa.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import study.datajpa.support.BlockIdGenerator;
+
+/**
+ * Member / Team id 블록 할당 설정 (datajpa.id-block.enabled=true)
+ * <p>
+ * 블록 시퀀스는 샤드별 id 규칙(id % 샤드수 == 샤드번호)을 모르므로 샤딩과 함께 쓸 수 없다.
+ * 할당기는 한 테넌트 스키마의 시퀀스에서 받은 블록을 모든 테넌트에 나눠주므로 id 가 겹칠 수 있어 멀티 테넌시와도 함께 쓸 수 없다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datajpa.id-block", name = "enabled", havingValue = "true")
+public class IdBlockConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer idBlockSettings(Environment environment) {
+        if (environment.getProperty("datajpa.tenancy.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("datajpa.id-block can not be used with datajpa.tenancy");
+        }
+        if (environment.getProperty("datajpa.sharding.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("datajpa.id-block can not be used with datajpa.sharding");
+        }
+        int blockSize = environment.getProperty(BlockIdGenerator.BLOCK_SIZE, Integer.class, 1000);
+        return properties -> {
+            properties.put(BlockIdGenerator.ENABLED, true);
+            properties.put(BlockIdGenerator.BLOCK_SIZE, blockSize);
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package study.datajpa.config;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.support.MemberSearchIndex;
+import study.datajpa.support.MemberSearchIndexSynchronizer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Member.username 인메모리 검색 색인 설정 (datajpa.search.enabled=true)
+ * <p>
+ * 외부 검색 엔진 없이 동작하지만 색인은 노드마다 따로 유지된다.
+ * 색인은 테넌트나 샤드를 구분하지 않고 기본 스키마만 적재하므로 멀티 테넌시, 샤딩과 함께 쓸 수 없다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datajpa.search", name = "enabled", havingValue = "true")
+public class MemberSearchConfig {
+
+    @Bean
+    public MemberSearchIndex memberSearchIndex(Environment environment) {
+        if (environment.getProperty("datajpa.tenancy.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("datajpa.search can not be used with datajpa.tenancy");
+        }
+        if (environment.getProperty("datajpa.sharding.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("datajpa.search can not be used with datajpa.sharding");
+        }
+        return new MemberSearchIndex();
+    }
+
+    @Bean
+    public MemberSearchIndexSynchronizer memberSearchIndexSynchronizer(MemberSearchIndex memberSearchIndex, EntityManager em,
+                                                                       PlatformTransactionManager transactionManager,
+                                                                       EntityManagerFactory entityManagerFactory) {
+        MemberSearchIndexSynchronizer synchronizer = new MemberSearchIndexSynchronizer(memberSearchIndex, em, transactionManager);
+
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, synchronizer);
+        registry.appendListeners(EventType.POST_UPDATE, synchronizer);
+        registry.appendListeners(EventType.POST_DELETE, synchronizer);
+        return synchronizer;
+    }
+}
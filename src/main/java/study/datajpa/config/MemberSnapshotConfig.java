@@ -0,0 +1,37 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.support.MemberColumnarSnapshot;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+
+/**
+ * 분석용 Member / Team 컬럼형 스냅샷 설정 (datajpa.snapshot.enabled=true)
+ * <p>
+ * 스냅샷은 테넌트나 샤드를 구분하지 않고 기본 스키마만 적재하므로 멀티 테넌시, 샤딩과 함께 쓸 수 없다.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "datajpa.snapshot", name = "enabled", havingValue = "true")
+public class MemberSnapshotConfig {
+
+    @Bean
+    public MemberColumnarSnapshot memberColumnarSnapshot(EntityManager em, PlatformTransactionManager transactionManager,
+                                                         Environment environment,
+                                                         @Value("${datajpa.snapshot.change-overlap-millis:60000}") long changeOverlapMillis) {
+        if (environment.getProperty("datajpa.tenancy.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("datajpa.snapshot can not be used with datajpa.tenancy");
+        }
+        if (environment.getProperty("datajpa.sharding.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("datajpa.snapshot can not be used with datajpa.sharding");
+        }
+        return new MemberColumnarSnapshot(em, transactionManager, Duration.ofMillis(changeOverlapMillis));
+    }
+}
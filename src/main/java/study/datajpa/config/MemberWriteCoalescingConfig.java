@@ -0,0 +1,36 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.support.MemberWriteCoalescer;
+import study.datajpa.support.MemberWriteCoalescingProperties;
+import study.datajpa.support.TenantScope;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 회원 변경 write-behind 버퍼 설정 (datajpa.write-coalescing.enabled=true)
+ * <p>
+ * 모아 둔 변경은 샤드를 지정하지 않고 반영되므로 샤딩과 함께 쓸 수 없다.
+ */
+@Configuration
+@EnableConfigurationProperties(MemberWriteCoalescingProperties.class)
+@ConditionalOnProperty(prefix = "datajpa.write-coalescing", name = "enabled", havingValue = "true")
+public class MemberWriteCoalescingConfig {
+
+    @Bean
+    public MemberWriteCoalescer memberWriteCoalescer(EntityManager em, PlatformTransactionManager transactionManager,
+                                                     MemberWriteCoalescingProperties properties,
+                                                     ObjectProvider<TenantScope> tenantScope,
+                                                     Environment environment) {
+        if (environment.getProperty("datajpa.sharding.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("datajpa.write-coalescing can not be used with datajpa.sharding");
+        }
+        return new MemberWriteCoalescer(em, transactionManager, properties, tenantScope.getIfAvailable(() -> TenantScope.SINGLE));
+    }
+}
@@ -0,0 +1,63 @@
+package study.datajpa.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.repository.OutboxEventRepository;
+import study.datajpa.support.OutboxConsumer;
+import study.datajpa.support.OutboxEventListener;
+import study.datajpa.support.OutboxRelay;
+import study.datajpa.support.OutboxWriter;
+import study.datajpa.support.TenantScope;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.stream.Collectors;
+
+/**
+ * Member / Team 변경 이벤트를 outbox 테이블에 남기고 relay 로 발행한다. (datajpa.outbox.enabled=true)
+ * <p>
+ * relay 는 샤드를 지정하지 않고 outbox 를 읽으므로 샤딩과 함께 쓸 수 없다.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "datajpa.outbox", name = "enabled", havingValue = "true")
+public class OutboxConfig {
+
+    @Bean
+    public OutboxWriter outboxWriter(ObjectMapper objectMapper, EntityManagerFactory entityManagerFactory,
+                                     Environment environment) {
+        if (environment.getProperty("datajpa.sharding.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("datajpa.outbox can not be used with datajpa.sharding");
+        }
+        OutboxWriter outboxWriter = new OutboxWriter(objectMapper);
+        OutboxEventListener listener = new OutboxEventListener(outboxWriter);
+
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        return outboxWriter;
+    }
+
+    @Bean
+    public OutboxRelay outboxRelay(OutboxEventRepository outboxEventRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   ObjectProvider<OutboxConsumer> consumers,
+                                   ObjectProvider<TenantScope> tenantScope,
+                                   @Value("${datajpa.outbox.batch-size:100}") int batchSize) {
+        return new OutboxRelay(outboxEventRepository, transactionManager, batchSize,
+                consumers.orderedStream().collect(Collectors.toList()),
+                tenantScope.getIfAvailable(() -> TenantScope.SINGLE));
+    }
+}
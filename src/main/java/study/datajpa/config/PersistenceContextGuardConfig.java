@@ -0,0 +1,69 @@
+package study.datajpa.config;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.datajpa.support.PersistenceContextGuard;
+import study.datajpa.support.PersistenceContextGuardAspect;
+import study.datajpa.support.PersistenceContextGuardProperties;
+
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 영속성 컨택스트 메모리 가드 설정 (datajpa.persistence-context-guard.enabled=true)
+ */
+@Configuration
+@EnableConfigurationProperties(PersistenceContextGuardProperties.class)
+@ConditionalOnProperty(prefix = "datajpa.persistence-context-guard", name = "enabled", havingValue = "true")
+public class PersistenceContextGuardConfig implements WebMvcConfigurer {
+
+    @Bean
+    public PersistenceContextGuard persistenceContextGuard(PersistenceContextGuardProperties properties,
+                                                           EntityManagerFactory entityManagerFactory) {
+        PersistenceContextGuard guard = new PersistenceContextGuard(properties);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, guard);
+        registry.appendListeners(EventType.PERSIST, guard);
+        registry.appendListeners(EventType.MERGE, guard);
+        registry.appendListeners(EventType.FLUSH, guard);
+        return guard;
+    }
+
+    @Bean
+    public PersistenceContextGuardAspect persistenceContextGuardAspect(PersistenceContextGuard guard,
+                                                                       EntityManagerFactory entityManagerFactory) {
+        return new PersistenceContextGuardAspect(guard, entityManagerFactory);
+    }
+
+    /**
+     * 요청의 URL 패턴을 엔드포인트 이름으로 기록한다. ex) GET /members/{id}
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                PersistenceContextGuard.setEndpoint(request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()));
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                PersistenceContextGuard.clearEndpoint();
+            }
+        });
+    }
+}
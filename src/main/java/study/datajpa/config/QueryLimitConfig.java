@@ -0,0 +1,23 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.support.QueryLimitRepositoryPostProcessor;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * @QueryLimit 의 행 수 제한을 리포지토리 쿼리의 setMaxResults 로 적용하도록 리포지토리가 쓰는 EntityManager 를 감싼다.
+ */
+@Configuration
+public class QueryLimitConfig {
+
+    /**
+     * BeanPostProcessor 는 다른 빈보다 먼저 만들어지므로 static 으로 등록하고 EntityManagerFactory 는 쓸 때 꺼낸다.
+     */
+    @Bean
+    public static QueryLimitRepositoryPostProcessor queryLimitRepositoryPostProcessor(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        return new QueryLimitRepositoryPostProcessor(entityManagerFactory);
+    }
+}
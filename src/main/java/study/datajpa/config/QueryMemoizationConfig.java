@@ -0,0 +1,32 @@
+package study.datajpa.config;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.support.RepositoryQueryMemoizer;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 트랜잭션 범위 리포지토리 조회 결과 재사용 설정 (datajpa.query-memoization.enabled=true)
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datajpa.query-memoization", name = "enabled", havingValue = "true")
+public class QueryMemoizationConfig {
+
+    @Bean
+    public RepositoryQueryMemoizer repositoryQueryMemoizer(EntityManagerFactory entityManagerFactory) {
+        RepositoryQueryMemoizer memoizer = new RepositoryQueryMemoizer(entityManagerFactory);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, memoizer);
+        registry.appendListeners(EventType.POST_UPDATE, memoizer);
+        registry.appendListeners(EventType.POST_DELETE, memoizer);
+        registry.appendListeners(EventType.CLEAR, memoizer);
+        return memoizer;
+    }
+}
@@ -0,0 +1,44 @@
+package study.datajpa.config;
+
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드의 클라이언트 키 (read-your-writes 범위)
+ * <p>
+ * 같은 클라이언트의 쓰기만 그 클라이언트의 읽기를 primary 로 보낸다.
+ * 웹 요청은 ReadYourWritesFilter 가 설정하고, 설정되지 않은 스레드는 스레드 단위로 본다.
+ */
+public final class ReadYourWritesContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ReadYourWritesContext() {
+    }
+
+    public static String current() {
+        String client = CURRENT.get();
+        return client != null ? client : "thread-" + Thread.currentThread().getId();
+    }
+
+    static void set(String client) {
+        CURRENT.set(client);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public static <T> T callAs(String client, Supplier<T> action) {
+        String previous = CURRENT.get();
+        CURRENT.set(client);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
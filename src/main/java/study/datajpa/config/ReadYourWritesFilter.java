@@ -0,0 +1,43 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+
+/**
+ * 요청의 클라이언트 키를 설정한다. (헤더 -> 세션 id -> 원격 주소 순)
+ */
+@RequiredArgsConstructor
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final String header;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ReadYourWritesContext.set(clientOf(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWritesContext.clear();
+        }
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String client = request.getHeader(header);
+        if (client != null) {
+            return "client-" + client;
+        }
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            return "session-" + session.getId();
+        }
+        return "addr-" + request.getRemoteAddr();
+    }
+}
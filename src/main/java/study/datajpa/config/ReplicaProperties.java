@@ -0,0 +1,36 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 읽기 전용 복제본(replica) 데이터소스 설정
+ * <p>
+ * datajpa.replica.url 이 설정되어 있을 때만 읽기/쓰기 라우팅이 활성화된다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datajpa.replica")
+public class ReplicaProperties {
+
+    private String url;
+    private String username;
+    private String password;
+    private String driverClassName;
+
+    /**
+     * 쓰기 트랜잭션 커밋 이후 이 시간(ms) 동안은 복제 지연을 고려해 읽기도 primary 로 보낸다.
+     */
+    private long lagToleranceMillis = 1000;
+
+    /**
+     * replica 커넥션 획득에 실패하면 이 시간(ms) 동안 primary 로 대체한다.
+     */
+    private long retryAfterMillis = 5000;
+
+    /**
+     * read-your-writes 를 묶을 클라이언트 키 헤더. 없으면 세션 id, 원격 주소 순으로 사용한다.
+     */
+    private String clientHeader = "X-Client-Id";
+}
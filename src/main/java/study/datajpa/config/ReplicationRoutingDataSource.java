@@ -0,0 +1,125 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 트랜잭션의 readOnly 여부로 primary / replica 를 고르는 라우팅 데이터소스
+ * <p>
+ * 1. @Transactional(readOnly = true) 안에서 얻는 커넥션은 replica 로 보낸다.
+ * 2. 쓰기 트랜잭션이 커밋된 직후(lagToleranceMillis 이내)에는 복제 지연 때문에 읽기도 primary 로 보낸다.
+ *    쓴 클라이언트(ReadYourWritesContext)의 읽기만 보내므로 다른 사용자의 쓰기는 replica 사용을 막지 않는다.
+ * 3. replica 커넥션 획득에 실패하면 primary 로 대체하고 retryAfterMillis 동안 replica 를 쓰지 않는다.
+ * <p>
+ * [주의점]
+ * readOnly 플래그는 트랜잭션 시작 이후에 설정되므로 반드시 LazyConnectionDataSourceProxy 로 감싸서
+ * 실제 커넥션 획득을 첫 쿼리 시점까지 미뤄야 한다.
+ */
+@Slf4j
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long lagToleranceMillis;
+    private final long retryAfterMillis;
+
+    private static final int EXPIRE_THRESHOLD = 1024;
+
+    // 클라이언트 키 -> 마지막 쓰기 커밋 시각
+    private final Map<String, Long> lastWriteCommittedAt = new ConcurrentHashMap<>();
+    private volatile long replicaUnavailableUntil = 0;
+
+    public ReplicationRoutingDataSource(DataSource primary, DataSource replica,
+                                        long lagToleranceMillis, long retryAfterMillis) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagToleranceMillis = lagToleranceMillis;
+        this.retryAfterMillis = retryAfterMillis;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registerWriteCommitCallback();
+            return Route.PRIMARY;
+        }
+        return isReplicaReadable() ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() != Route.REPLICA) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException e) {
+            markReplicaUnavailable(e);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (determineCurrentLookupKey() != Route.REPLICA) {
+            return primary.getConnection(username, password);
+        }
+        try {
+            return replica.getConnection(username, password);
+        } catch (SQLException e) {
+            markReplicaUnavailable(e);
+            return primary.getConnection(username, password);
+        }
+    }
+
+    private boolean isReplicaReadable() {
+        long now = System.currentTimeMillis();
+        if (now < replicaUnavailableUntil) {
+            return false;
+        }
+        Long lastWrite = lastWriteCommittedAt.get(ReadYourWritesContext.current());
+        return lastWrite == null || now - lastWrite >= lagToleranceMillis;
+    }
+
+    // 커밋 시점을 기록해야 read-your-writes 가 보장되므로 커넥션 획득 시점이 아닌 afterCommit 에서 남긴다.
+    private void registerWriteCommitCallback() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String client = ReadYourWritesContext.current();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                long now = System.currentTimeMillis();
+                lastWriteCommittedAt.put(client, now);
+                if (lastWriteCommittedAt.size() > EXPIRE_THRESHOLD) {
+                    lastWriteCommittedAt.values().removeIf(committedAt -> now - committedAt >= lagToleranceMillis);
+                }
+            }
+        });
+    }
+
+    private void markReplicaUnavailable(SQLException e) {
+        replicaUnavailableUntil = System.currentTimeMillis() + retryAfterMillis;
+        log.warn("replica connection failed, falling back to primary for {}ms", retryAfterMillis, e);
+    }
+}
@@ -0,0 +1,34 @@
+package study.datajpa.config;
+
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드가 사용할 샤드 번호
+ * <p>
+ * 커넥션은 트랜잭션 시작 시점에 결정되므로 트랜잭션 밖에서 설정해야 한다. (ShardTemplate 사용)
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T callOn(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
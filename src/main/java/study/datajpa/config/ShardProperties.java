@@ -0,0 +1,37 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * team_id 기준 샤딩 설정
+ * <p>
+ * shards 의 순서가 곧 샤드 번호이므로 운영 중에 순서를 바꾸면 안 된다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datajpa.sharding")
+public class ShardProperties {
+
+    private boolean enabled;
+
+    /**
+     * 0번 샤드의 스키마를 나머지 샤드로 복사하고 시퀀스를 샤드별로 나눈다. (로컬 H2 전용)
+     */
+    private boolean initializeSchema;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+    }
+}
@@ -0,0 +1,39 @@
+package study.datajpa.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * team_id 로 샤드를 결정한다.
+ * <p>
+ * 각 샤드의 시퀀스는 "start with 샤드번호, increment by 샤드수" 로 만들어져 있어야 한다.
+ * 그래야 샤드 k 에서 생성된 team_id 는 항상 team_id % 샤드수 == k 를 만족하고,
+ * 해당 팀의 Member 도 같은 샤드에 저장되어 Member - Team 조인이 샤드 안에서 끝난다.
+ */
+public class ShardRouter {
+
+    private final int shardCount;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardRouter(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    public int shardOf(Long teamId) {
+        // 팀이 없는 회원은 0번 샤드에 둔다.
+        if (teamId == null) {
+            return 0;
+        }
+        return (int) Math.floorMod(teamId, (long) shardCount);
+    }
+
+    /**
+     * 새 팀은 샤드에 고르게 분배한다.
+     */
+    public int nextShardForNewTeam() {
+        return Math.floorMod(nextShard.getAndIncrement(), shardCount);
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+}
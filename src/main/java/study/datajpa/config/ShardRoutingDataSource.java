@@ -0,0 +1,60 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ShardContext 의 샤드 번호로 커넥션을 고르는 데이터소스
+ * <p>
+ * 샤드가 지정되지 않은 경우 애플리케이션 기동 중(ddl-auto 스키마 생성 등)에는 0번 샤드를 사용하고,
+ * 기동이 끝난 뒤에는 예외를 던진다. MemberRepository 를 ShardTemplate 없이 호출하면
+ * 팀과 다른 샤드에 조용히 저장되기 때문이다.
+ * 샤드를 지정하지 않는 백그라운드 작업(outbox relay, 통계 재계산, 스냅샷, 검색 색인, 변경 이력 등)은
+ * 각 설정에서 샤딩과 함께 켜지 않도록 막는다.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements SmartInitializingSingleton {
+
+    private final List<DataSource> shards;
+    private volatile boolean requireShard;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("at least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        requireShard = true;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardContext.current();
+        if (shard == null && requireShard) {
+            throw new IllegalStateException("no shard is selected; use ShardTemplate or MemberShardRepository");
+        }
+        return shard;
+    }
+
+    public DataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+}
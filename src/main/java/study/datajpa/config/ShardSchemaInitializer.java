@@ -0,0 +1,42 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 로컬(H2) 전용 샤드 스키마 초기화
+ * <p>
+ * ddl-auto 는 기본 샤드(0번)에만 적용되므로, 0번 샤드의 DDL 을 나머지 샤드로 복사하고
+ * 시퀀스를 샤드별로 나눠 ShardRouter 의 규칙(id % 샤드수 == 샤드번호)을 맞춘다.
+ * 운영 DB 는 마이그레이션으로 같은 구성을 만들어야 한다.
+ */
+@RequiredArgsConstructor
+public class ShardSchemaInitializer implements InitializingBean {
+
+    private final ShardRoutingDataSource dataSource;
+    // ddl-auto 가 끝난 뒤에 실행되도록 의존성을 건다.
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void afterPropertiesSet() {
+        List<String> ddl = new JdbcTemplate(dataSource.getShard(0)).queryForList("SCRIPT NODATA", String.class)
+                .stream()
+                .filter(sql -> !sql.startsWith("--") && !sql.startsWith("CREATE USER"))
+                .collect(Collectors.toList());
+
+        int shardCount = dataSource.getShardCount();
+        for (int shard = 0; shard < shardCount; shard++) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource.getShard(shard));
+            if (shard > 0) {
+                ddl.forEach(jdbcTemplate::execute);
+            }
+            int start = shard == 0 ? shardCount : shard;
+            jdbcTemplate.execute("alter sequence hibernate_sequence restart with " + start + " increment by " + shardCount);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 샤드를 지정해서 트랜잭션을 실행한다.
+ * <p>
+ * 샤드마다 커넥션이 달라야 하므로 항상 새 트랜잭션(REQUIRES_NEW)으로 실행한다.
+ * 트랜잭션이 끝나면 조회한 엔티티는 준영속 상태가 되므로 지연 로딩이 필요한 연관관계는 미리 조회해야 한다.
+ */
+public class ShardTemplate implements DisposableBean {
+
+    private final ShardRouter shardRouter;
+    private final PlatformTransactionManager transactionManager;
+    private final ExecutorService executor;
+
+    public ShardTemplate(ShardRouter shardRouter, PlatformTransactionManager transactionManager) {
+        this.shardRouter = shardRouter;
+        this.transactionManager = transactionManager;
+        this.executor = Executors.newFixedThreadPool(shardRouter.getShardCount());
+    }
+
+    public <T> T executeForTeam(Long teamId, Supplier<T> action) {
+        return execute(shardRouter.shardOf(teamId), false, action);
+    }
+
+    public <T> T execute(int shard, boolean readOnly, Supplier<T> action) {
+        return ShardContext.callOn(shard, () -> {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transactionTemplate.setReadOnly(readOnly);
+            return transactionTemplate.execute(status -> action.get());
+        });
+    }
+
+    /**
+     * 샤드 키가 없는 조회는 모든 샤드에 동시에 보내고 결과를 샤드 순서대로 모은다.
+     */
+    public <T> List<T> scatter(Supplier<T> action) {
+        List<CompletableFuture<T>> futures = IntStream.range(0, shardRouter.getShardCount())
+                .mapToObj(shard -> CompletableFuture.supplyAsync(() -> execute(shard, true, action), executor))
+                .collect(Collectors.toList());
+
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,64 @@
+package study.datajpa.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * team_id 기준 수평 샤딩 설정
+ * <p>
+ * 샤드 라우팅 데이터소스를 @Primary 로 등록하므로 replica 라우팅(DataSourceRoutingConfig)보다 우선한다.
+ * 샤드 키가 있는 작업은 ShardTemplate, 샤드 키가 없는 조회는 MemberShardRepository 를 사용한다.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardProperties.class)
+@ConditionalOnProperty(prefix = "datajpa.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource shardRoutingDataSource(ShardProperties shardProperties) {
+        List<DataSource> shards = shardProperties.getShards().stream()
+                .map(this::shardDataSource)
+                .collect(Collectors.toList());
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    public ShardRouter shardRouter(ShardProperties shardProperties) {
+        return new ShardRouter(shardProperties.getShards().size());
+    }
+
+    @Bean
+    public ShardTemplate shardTemplate(ShardRouter shardRouter, PlatformTransactionManager transactionManager) {
+        return new ShardTemplate(shardRouter, transactionManager);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "datajpa.sharding", name = "initialize-schema", havingValue = "true")
+    public ShardSchemaInitializer shardSchemaInitializer(ShardRoutingDataSource dataSource,
+                                                         EntityManagerFactory entityManagerFactory) {
+        return new ShardSchemaInitializer(dataSource, entityManagerFactory);
+    }
+
+    private DataSource shardDataSource(ShardProperties.Shard shard) {
+        DataSourceBuilder<?> builder = DataSourceBuilder.create()
+                .url(shard.getUrl())
+                .username(shard.getUsername())
+                .password(shard.getPassword());
+        if (StringUtils.hasText(shard.getDriverClassName())) {
+            builder.driverClassName(shard.getDriverClassName());
+        }
+        return builder.build();
+    }
+}
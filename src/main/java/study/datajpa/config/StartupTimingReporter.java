@@ -0,0 +1,57 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * 기동이 끝나면 가장 오래 걸린 단계들을 로그로 남긴다.
+ * <p>
+ * main() 에서 BufferingApplicationStartup 을 설정했을 때만 동작한다. (테스트에서는 동작하지 않는다)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StartupTimingReporter {
+
+    private static final int TOP = 20;
+
+    private final ApplicationStartup applicationStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        if (!(applicationStartup instanceof BufferingApplicationStartup)) {
+            return;
+        }
+        StartupTimeline timeline = ((BufferingApplicationStartup) applicationStartup).getBufferedTimeline();
+        List<StartupTimeline.TimelineEvent> slowest = timeline.getEvents().stream()
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(TOP)
+                .collect(Collectors.toList());
+
+        Duration total = Duration.between(timeline.getStartTime(), Instant.now());
+        log.info("startup took {}ms, slowest steps:\n{}", total.toMillis(), slowest.stream()
+                .map(event -> String.format("%6dms  %s %s", event.getDuration().toMillis(),
+                        event.getStartupStep().getName(), tags(event.getStartupStep())))
+                .collect(Collectors.joining("\n")));
+    }
+
+    private String tags(StartupStep step) {
+        return StreamSupport.stream(step.getTags().spliterator(), false)
+                .map(tag -> tag.getKey() + "=" + tag.getValue())
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+}
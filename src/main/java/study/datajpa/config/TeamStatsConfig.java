@@ -0,0 +1,55 @@
+package study.datajpa.config;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.support.TeamStatsEventListener;
+import study.datajpa.support.TeamStatsReconciler;
+import study.datajpa.support.TeamStatsUpdater;
+import study.datajpa.support.TenantScope;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 팀별 통계(team_stats) 증분 갱신 설정 (datajpa.team-stats.enabled=true)
+ * <p>
+ * 다시 계산(reconcile)은 샤드를 지정하지 않고 실행되므로 샤딩과 함께 쓸 수 없다.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "datajpa.team-stats", name = "enabled", havingValue = "true")
+public class TeamStatsConfig {
+
+    @Bean
+    public TeamStatsUpdater teamStatsUpdater(EntityManagerFactory entityManagerFactory, Environment environment) {
+        if (environment.getProperty("datajpa.sharding.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("datajpa.team-stats can not be used with datajpa.sharding");
+        }
+        TeamStatsUpdater teamStatsUpdater = new TeamStatsUpdater();
+        TeamStatsEventListener listener = new TeamStatsEventListener(teamStatsUpdater);
+
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        return teamStatsUpdater;
+    }
+
+    @Bean
+    public TeamStatsReconciler teamStatsReconciler(EntityManager em, PlatformTransactionManager transactionManager,
+                                                   ObjectProvider<TenantScope> tenantScope,
+                                                   @Value("${datajpa.team-stats.reconcile-chunk-size:500}") int chunkSize) {
+        return new TeamStatsReconciler(em, transactionManager, chunkSize, tenantScope.getIfAvailable(() -> TenantScope.SINGLE));
+    }
+}
@@ -0,0 +1,81 @@
+package study.datajpa.config;
+
+import org.hibernate.MultiTenancyStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.support.TenantMetrics;
+import study.datajpa.support.TenantScope;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+/**
+ * 스키마 기반 멀티 테넌시 설정 (datajpa.tenancy.enabled=true)
+ * <p>
+ * Member / Team / Item 은 테넌트 스키마에 저장되고, 테넌트마다 커넥션 할당량과 쿼리 지표를 따로 둔다.
+ * 2차 캐시를 켜면 Hibernate 가 캐시 키에 테넌트 id 를 넣으므로 캐시도 테넌트별로 나뉜다.
+ * 로컬에서는 H2 스키마로 확인할 수 있다. (initialize-schema)
+ * <p>
+ * 요청 스레드 밖의 작업(write-behind, outbox relay, 통계 재계산)은 TenantScope 로 테넌트를 지정한다.
+ * 기본 스키마만 적재하는 검색 색인(datajpa.search)과 컬럼형 스냅샷(datajpa.snapshot)은 함께 쓸 수 없다.
+ */
+@Configuration
+@EnableConfigurationProperties(TenantProperties.class)
+@ConditionalOnProperty(prefix = "datajpa.tenancy", name = "enabled", havingValue = "true")
+public class TenancyConfig {
+
+    @Bean
+    public TenantMetrics tenantMetrics() {
+        return new TenantMetrics();
+    }
+
+    @Bean
+    public TenantScope tenantScope(TenantProperties properties) {
+        return new TenantContextScope(properties);
+    }
+
+    @Bean
+    public TenantIdentifierResolver tenantIdentifierResolver() {
+        return new TenantIdentifierResolver();
+    }
+
+    @Bean
+    public TenantConnectionProvider tenantConnectionProvider(DataSource dataSource, TenantProperties properties,
+                                                             TenantMetrics tenantMetrics) {
+        return new TenantConnectionProvider(dataSource, properties, tenantMetrics);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer tenancySettings(TenantConnectionProvider connectionProvider,
+                                                         TenantIdentifierResolver resolver) {
+        return properties -> {
+            properties.put(AvailableSettings.MULTI_TENANT, MultiTenancyStrategy.SCHEMA);
+            properties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, connectionProvider);
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, resolver);
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<TenantFilter> tenantFilter(TenantProperties properties,
+                                                             TenantConnectionProvider connectionProvider) {
+        return new FilterRegistrationBean<>(new TenantFilter(properties.getHeader(), connectionProvider));
+    }
+
+    @Bean
+    public TenantQueryMetricsAspect tenantQueryMetricsAspect(TenantMetrics tenantMetrics,
+                                                             TenantIdentifierResolver resolver) {
+        return new TenantQueryMetricsAspect(tenantMetrics, resolver);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "datajpa.tenancy", name = "initialize-schema", havingValue = "true")
+    public TenantSchemaInitializer tenantSchemaInitializer(DataSource dataSource, TenantProperties properties,
+                                                           EntityManagerFactory entityManagerFactory) {
+        return new TenantSchemaInitializer(dataSource, properties, entityManagerFactory);
+    }
+}
@@ -0,0 +1,172 @@
+package study.datajpa.config;
+
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+import study.datajpa.support.TenantMetrics;
+import study.datajpa.support.TenantQuotaExceededException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 테넌트의 스키마로 커넥션을 바꿔 주는 Hibernate 커넥션 공급자
+ * <p>
+ * 풀은 하나를 같이 쓰고, 테넌트마다 세마포어로 동시에 들고 있을 수 있는 커넥션 수를 제한한다.
+ * 한 테넌트가 무거운 조회로 자기 할당량을 다 써도 다른 테넌트가 쓸 커넥션은 풀에 남는다.
+ * 커넥션은 세션(OSIV 라면 요청)이 끝날 때 반납되므로 할당량은 동시에 DB 를 쓰는 요청 수를 제한한다.
+ */
+public class TenantConnectionProvider implements MultiTenantConnectionProvider {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private final DataSource dataSource;
+    private final TenantMetrics metrics;
+    private final String defaultSchema;
+    private final long acquireTimeoutMillis;
+    private final Map<String, Tenant> tenants = new HashMap<>();
+
+    public TenantConnectionProvider(DataSource dataSource, TenantProperties properties, TenantMetrics metrics) {
+        this.dataSource = dataSource;
+        this.metrics = metrics;
+        this.defaultSchema = properties.getDefaultSchema();
+        this.acquireTimeoutMillis = properties.getAcquireTimeoutMillis();
+
+        tenants.put(DEFAULT_TENANT, new Tenant(defaultSchema, 0));
+        for (TenantProperties.Tenant tenant : properties.getTenants()) {
+            int maxConnections = tenant.getMaxConnections() != null
+                    ? tenant.getMaxConnections()
+                    : properties.getDefaultMaxConnections();
+            tenants.put(tenant.getId(), new Tenant(tenant.getSchema(), maxConnections));
+        }
+    }
+
+    public boolean isKnown(String tenant) {
+        return tenants.containsKey(tenant);
+    }
+
+    /**
+     * @return 테넌트별 할당량과 지금 사용 중인 커넥션 수
+     */
+    public Map<String, Map<String, Integer>> getUsage() {
+        Map<String, Map<String, Integer>> result = new LinkedHashMap<>();
+        tenants.forEach((id, tenant) -> {
+            if (tenant.permits != null) {
+                Map<String, Integer> values = new LinkedHashMap<>();
+                values.put("maxConnections", tenant.maxConnections);
+                values.put("inUse", tenant.maxConnections - tenant.permits.availablePermits());
+                result.put(id, values);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Connection getAnyConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    @Override
+    public void releaseAnyConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public Connection getConnection(String tenantIdentifier) throws SQLException {
+        Tenant tenant = tenant(tenantIdentifier);
+        long started = System.nanoTime();
+        tenant.acquire(tenantIdentifier);
+        try {
+            Connection connection = dataSource.getConnection();
+            try {
+                connection.setSchema(tenant.schema);
+            } catch (SQLException | RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+            metrics.recordConnection(tenantIdentifier, System.nanoTime() - started);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            tenant.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void releaseConnection(String tenantIdentifier, Connection connection) throws SQLException {
+        try {
+            // 풀로 돌아간 커넥션이 다른 테넌트의 스키마를 보지 않도록 되돌린다.
+            connection.setSchema(defaultSchema);
+        } finally {
+            try {
+                connection.close();
+            } finally {
+                tenant(tenantIdentifier).release();
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class unwrapType) {
+        return unwrapType.isInstance(this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (isUnwrappableAs(unwrapType)) {
+            return (T) this;
+        }
+        throw new IllegalArgumentException("can not unwrap as " + unwrapType);
+    }
+
+    private Tenant tenant(String tenantIdentifier) {
+        Tenant tenant = tenants.get(tenantIdentifier);
+        if (tenant == null) {
+            throw new IllegalArgumentException("unknown tenant: " + tenantIdentifier);
+        }
+        return tenant;
+    }
+
+    private class Tenant {
+        private final String schema;
+        private final int maxConnections;
+        private final Semaphore permits;
+
+        Tenant(String schema, int maxConnections) {
+            this.schema = schema;
+            this.maxConnections = maxConnections;
+            this.permits = maxConnections > 0 ? new Semaphore(maxConnections, true) : null;
+        }
+
+        void acquire(String tenantIdentifier) {
+            if (permits == null) {
+                return;
+            }
+            try {
+                if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    metrics.recordRejected(tenantIdentifier);
+                    throw new TenantQuotaExceededException(tenantIdentifier, maxConnections, acquireTimeoutMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for a connection of tenant " + tenantIdentifier, e);
+            }
+        }
+
+        void release() {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package study.datajpa.config;
+
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드의 테넌트 id
+ * <p>
+ * 테넌트(스키마)는 EntityManager 를 만들 때 결정되므로 트랜잭션 밖에서 설정해야 한다.
+ * 웹 요청은 TenantFilter 가 헤더로 설정한다.
+ */
+public final class TenantContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    static void set(String tenant) {
+        CURRENT.set(tenant);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public static <T> T callAs(String tenant, Supplier<T> action) {
+        String previous = CURRENT.get();
+        CURRENT.set(tenant);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
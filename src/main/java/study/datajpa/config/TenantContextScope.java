@@ -0,0 +1,38 @@
+package study.datajpa.config;
+
+import study.datajpa.support.TenantScope;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * TenantContext 로 테넌트를 지정하는 TenantScope
+ */
+public class TenantContextScope implements TenantScope {
+
+    private final List<String> tenants;
+
+    public TenantContextScope(TenantProperties properties) {
+        List<String> tenants = new ArrayList<>();
+        tenants.add(TenantConnectionProvider.DEFAULT_TENANT);
+        properties.getTenants().forEach(tenant -> tenants.add(tenant.getId()));
+        this.tenants = Collections.unmodifiableList(tenants);
+    }
+
+    @Override
+    public String current() {
+        return TenantContext.current();
+    }
+
+    @Override
+    public List<String> tenants() {
+        return tenants;
+    }
+
+    @Override
+    public <T> T callAs(String tenant, Supplier<T> action) {
+        return TenantContext.callAs(tenant, action);
+    }
+}
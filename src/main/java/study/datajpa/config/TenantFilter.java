@@ -0,0 +1,43 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 요청 헤더(X-Tenant-Id)로 테넌트를 설정한다.
+ * <p>
+ * OSIV 가 EntityManager 를 만들기 전에 테넌트가 정해져야 하므로 인터셉터가 아닌 필터에서 설정한다.
+ */
+@RequiredArgsConstructor
+public class TenantFilter extends OncePerRequestFilter {
+
+    private final String header;
+    private final TenantConnectionProvider connectionProvider;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String tenant = request.getHeader(header);
+        if (tenant == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!connectionProvider.isKnown(tenant)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "unknown tenant: " + tenant);
+            return;
+        }
+        TenantContext.set(tenant);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.config;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+/**
+ * EntityManager 를 만들 때 TenantContext 의 테넌트를 사용한다. 없으면 기본 스키마를 쓴다.
+ */
+public class TenantIdentifierResolver implements CurrentTenantIdentifierResolver {
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        String tenant = TenantContext.current();
+        return tenant != null ? tenant : TenantConnectionProvider.DEFAULT_TENANT;
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+}
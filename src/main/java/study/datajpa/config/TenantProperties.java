@@ -0,0 +1,50 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 스키마 기반 멀티 테넌시 설정
+ * <p>
+ * 테넌트마다 스키마를 따로 두고, 한 테넌트가 동시에 쓸 수 있는 커넥션 수(maxConnections)를 제한한다.
+ * 테넌트를 지정하지 않은 요청은 defaultSchema 를 사용한다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datajpa.tenancy")
+public class TenantProperties {
+
+    private boolean enabled;
+
+    /**
+     * 기본 스키마의 DDL 을 테넌트 스키마로 복사한다. (로컬 H2 전용, 기존 테넌트 스키마는 지운다)
+     */
+    private boolean initializeSchema;
+
+    private String header = "X-Tenant-Id";
+    private String defaultSchema = "PUBLIC";
+
+    /**
+     * maxConnections 를 지정하지 않은 테넌트의 동시 커넥션 수 (0 이면 제한 없음)
+     */
+    private int defaultMaxConnections;
+
+    /**
+     * 커넥션 할당량이 다 찼을 때 기다리는 최대 시간
+     */
+    private long acquireTimeoutMillis = 1000;
+
+    private List<Tenant> tenants = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Tenant {
+        private String id;
+        private String schema;
+        private Integer maxConnections;
+    }
+}
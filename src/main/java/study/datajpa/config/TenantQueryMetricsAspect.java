@@ -0,0 +1,33 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import study.datajpa.support.TenantMetrics;
+
+/**
+ * 리포지토리 호출 수와 시간을 테넌트별로 기록한다.
+ */
+@Aspect
+@RequiredArgsConstructor
+public class TenantQueryMetricsAspect {
+
+    private final TenantMetrics metrics;
+    private final TenantIdentifierResolver resolver;
+
+    @Around("execution(* study.datajpa.repository.MemberRepository.*(..))" +
+            " || execution(* study.datajpa.repository.TeamRepository.*(..))" +
+            " || execution(* study.datajpa.repository.ItemRepository.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            metrics.recordQuery(resolver.resolveCurrentTenantIdentifier(), System.nanoTime() - started, failed);
+        }
+    }
+}
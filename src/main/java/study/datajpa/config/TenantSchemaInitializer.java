@@ -0,0 +1,45 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 로컬(H2) 전용 테넌트 스키마 초기화
+ * <p>
+ * ddl-auto 는 기본 스키마에만 적용되므로, 테넌트 스키마를 지우고 기본 스키마의 DDL 을 복사해서 다시 만든다.
+ * 운영 DB 는 테넌트를 추가할 때 마이그레이션으로 스키마를 만들어야 한다.
+ */
+@RequiredArgsConstructor
+public class TenantSchemaInitializer implements InitializingBean {
+
+    private final DataSource dataSource;
+    private final TenantProperties properties;
+    // ddl-auto 가 끝난 뒤에 실행되도록 의존성을 건다.
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void afterPropertiesSet() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (TenantProperties.Tenant tenant : properties.getTenants()) {
+            jdbcTemplate.execute("drop schema if exists \"" + tenant.getSchema() + "\" cascade");
+        }
+
+        String qualifier = "\"" + properties.getDefaultSchema() + "\".";
+        List<String> ddl = jdbcTemplate.queryForList("SCRIPT NODATA", String.class)
+                .stream()
+                .filter(sql -> sql.contains(qualifier))
+                .collect(Collectors.toList());
+
+        for (TenantProperties.Tenant tenant : properties.getTenants()) {
+            jdbcTemplate.execute("create schema \"" + tenant.getSchema() + "\"");
+            String target = "\"" + tenant.getSchema() + "\".";
+            ddl.forEach(sql -> jdbcTemplate.execute(sql.replace(qualifier, target)));
+        }
+    }
+}
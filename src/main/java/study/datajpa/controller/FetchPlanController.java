@@ -0,0 +1,23 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.support.AdaptiveFetchPlanner;
+import study.datajpa.support.FetchPlanStats;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class FetchPlanController {
+    private final AdaptiveFetchPlanner adaptiveFetchPlanner;
+
+    /**
+     * callSite / 연관관계별 fetch 전략 통계. fetchedButUnused 가 true 면 가져오고 쓰지 않는 연관관계다.
+     */
+    @GetMapping("/admin/fetch-plans")
+    public List<FetchPlanStats> fetchPlans() {
+        return adaptiveFetchPlanner.report();
+    }
+}
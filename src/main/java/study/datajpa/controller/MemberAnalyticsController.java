@@ -0,0 +1,47 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.MemberSearchDto;
+import study.datajpa.dto.TeamAgeSummaryDto;
+import study.datajpa.support.MemberColumnarSnapshot;
+import study.datajpa.support.MemberSnapshotFilter;
+
+import java.util.List;
+
+/**
+ * DB 대신 MemberColumnarSnapshot 에서 집계한다. (스냅샷 갱신 주기만큼 늦을 수 있다)
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "datajpa.snapshot", name = "enabled", havingValue = "true")
+public class MemberAnalyticsController {
+    private final MemberColumnarSnapshot memberColumnarSnapshot;
+
+    /**
+     * ex) /analytics/teams?username=member%25&minAge=20
+     */
+    @GetMapping("/analytics/teams")
+    public List<TeamAgeSummaryDto> teams(@RequestParam(value = "username", required = false) String username,
+                                         @RequestParam(value = "minAge", required = false) Integer minAge,
+                                         @RequestParam(value = "maxAge", required = false) Integer maxAge) {
+        return memberColumnarSnapshot.groupByTeam(MemberSnapshotFilter.all()
+                .ageBetween(minAge, maxAge)
+                .usernameLike(username));
+    }
+
+    /**
+     * ex) /analytics/members/oldest?n=10&teamId=1
+     */
+    @GetMapping("/analytics/members/oldest")
+    public List<MemberSearchDto> oldest(@RequestParam(value = "n", defaultValue = "10") int n,
+                                        @RequestParam(value = "teamId", required = false) Long teamId,
+                                        @RequestParam(value = "username", required = false) String username) {
+        return memberColumnarSnapshot.topByAge(MemberSnapshotFilter.all()
+                .team(teamId)
+                .usernameLike(username), n);
+    }
+}
@@ -1,30 +1,46 @@
 package study.datajpa.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.data.web.SpringDataWebProperties;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.ScrollDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberDirectRepository;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.support.FetchPlan;
 
 import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
     private final MemberRepository memberRepository;
+    private final MemberDirectRepository memberDirectRepository;
+    private final SpringDataWebProperties dataWebProperties;
 
     /**
      * 도메인 클래스 컨버터 사용 전
+     * <p>
+     * 호출이 많은 단건 조회라 리포지토리 프록시를 거치지 않는 MemberDirectRepository 를 사용한다.
+     * 프록시에 걸린 부가 기능은 적용되지 않는다. (RepositoryLookupBenchmark)
+     * - readOnly 트랜잭션을 열지 않으므로 replica 로 라우팅되지 않고 primary 에서 읽는다.
+     * - 트랜잭션 단위 조회 결과 재사용(RepositoryQueryMemoizer)과 테넌트별 쿼리 지표(TenantQueryMetricsAspect)에 잡히지 않는다.
      */
     @GetMapping("/members/{id}")
     public String findMember(@PathVariable("id") Long id) {
-        Member member = memberRepository.findById(id).get();
+        Member member = memberDirectRepository.findById(id).get();
         return member.getUsername();
     }
 
@@ -47,6 +63,41 @@ public class MemberController {
         return memberDtos;
     }
 
+    /**
+     * 전체 개수가 필요 없는 목록은 Slice 로 조회한다. (count 쿼리 X)
+     */
+    @GetMapping("/members/slice")
+    public Slice<MemberDto> slice(@PageableDefault(size = 5) Pageable pageable) {
+        return memberRepository.findSliceBy(pageable).map(MemberDto::new);
+    }
+
+    /**
+     * 키셋 기반 무한 스크롤
+     * 첫 요청은 cursor 없이, 다음 요청부터는 응답의 nextCursor 를 넘긴다.
+     * size 는 Pageable 파라미터와 같이 max-page-size 를 넘지 않게 자른다.
+     */
+    @GetMapping("/members/scroll")
+    public ScrollDto<MemberDto> scroll(@RequestParam(value = "cursor", defaultValue = "0") Long cursor,
+                                       @RequestParam(value = "size", defaultValue = "20") int size) {
+        int pageSize = Math.max(1, Math.min(size, dataWebProperties.getPageable().getMaxPageSize()));
+        Slice<Member> slice = memberRepository.findSliceByIdGreaterThan(cursor,
+                PageRequest.of(0, pageSize, Sort.by(Sort.Direction.ASC, "id")));
+
+        List<MemberDto> content = slice.map(MemberDto::new).getContent();
+        Long nextCursor = slice.hasContent() ? slice.getContent().get(slice.getNumberOfElements() - 1).getId() : null;
+        return new ScrollDto<>(content, slice.hasNext(), nextCursor);
+    }
+
+    /**
+     * 팀 이름까지 내려주므로 team 에 접근한다고 선언한다. 가져오는 방법은 AdaptiveFetchPlanner 가 고른다.
+     */
+    @GetMapping("/members/teams")
+    public List<MemberDto> listWithTeam(@PageableDefault(size = 5) Pageable pageable) {
+        return memberRepository.findByFetchPlan(FetchPlan.of("GET /members/teams", "team"), pageable).stream()
+                .map(m -> new MemberDto(m.getId(), m.getUsername(), m.getTeam() == null ? null : m.getTeam().getName()))
+                .collect(Collectors.toList());
+    }
+
 //    @PostConstruct
     public void init() {
         memberRepository.save(new Member("member1"));
@@ -0,0 +1,32 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.MemberSearchDto;
+import study.datajpa.support.MemberSearchIndex;
+
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "datajpa.search", name = "enabled", havingValue = "true")
+public class MemberSearchController {
+    private final MemberSearchIndex memberSearchIndex;
+
+    /**
+     * ex) /members/search?q=mem&mode=PREFIX&minAge=20&page=1&size=10
+     */
+    @GetMapping("/members/search")
+    public Page<MemberSearchDto> search(@RequestParam("q") String query,
+                                        @RequestParam(value = "mode", defaultValue = "PREFIX") MemberSearchIndex.Mode mode,
+                                        @RequestParam(value = "maxEdits", defaultValue = "1") int maxEdits,
+                                        @RequestParam(value = "minAge", required = false) Integer minAge,
+                                        @RequestParam(value = "maxAge", required = false) Integer maxAge,
+                                        @PageableDefault(size = 5) Pageable pageable) {
+        return memberSearchIndex.search(query, mode, maxEdits, minAge, maxAge, pageable);
+    }
+}
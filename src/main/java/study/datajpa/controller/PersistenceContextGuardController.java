@@ -0,0 +1,29 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.support.PersistenceContextGuard;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "datajpa.persistence-context-guard", name = "enabled", havingValue = "true")
+public class PersistenceContextGuardController {
+    private final PersistenceContextGuard guard;
+
+    /**
+     * 엔드포인트별 영속성 컨택스트 최대 엔티티 수
+     */
+    @GetMapping("/admin/persistence-context")
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("highWaterMarks", guard.getHighWaterMarks());
+        metrics.put("clearCount", guard.getClearCount());
+        metrics.put("failCount", guard.getFailCount());
+        return metrics;
+    }
+}
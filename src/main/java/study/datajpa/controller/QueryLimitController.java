@@ -0,0 +1,22 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.support.QueryLimitMetrics;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class QueryLimitController {
+    private final QueryLimitMetrics queryLimitMetrics;
+
+    /**
+     * @QueryLimit 메서드별 호출 수, 최대 결과 행 수, 제한 초과 / 타임아웃 횟수
+     */
+    @GetMapping("/admin/query-limits")
+    public Map<String, Map<String, Long>> queryLimits() {
+        return queryLimitMetrics.getMetrics();
+    }
+}
@@ -0,0 +1,26 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.TeamStatsDto;
+import study.datajpa.repository.TeamStatsRepository;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+    private final TeamStatsRepository teamStatsRepository;
+
+    /**
+     * Member 테이블을 group by 하지 않고 team_stats 한 행만 조회한다.
+     */
+    @GetMapping("/teams/{id}/stats")
+    public ResponseEntity<TeamStatsDto> stats(@PathVariable("id") Long id) {
+        return teamStatsRepository.findById(id)
+                .map(TeamStatsDto::new)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
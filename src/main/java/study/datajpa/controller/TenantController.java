@@ -0,0 +1,34 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.config.TenantConnectionProvider;
+import study.datajpa.support.TenantMetrics;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "datajpa.tenancy", name = "enabled", havingValue = "true")
+public class TenantController {
+    private final TenantMetrics tenantMetrics;
+    private final TenantConnectionProvider tenantConnectionProvider;
+
+    /**
+     * 테넌트별 커넥션 대기 / 거절 수, 리포지토리 쿼리 수와 시간
+     */
+    @GetMapping("/admin/tenants")
+    public Map<String, Map<String, Long>> tenants() {
+        return tenantMetrics.getMetrics();
+    }
+
+    /**
+     * 테넌트별 커넥션 할당량과 사용 중인 커넥션 수
+     */
+    @GetMapping("/admin/tenants/connections")
+    public Map<String, Map<String, Integer>> connections() {
+        return tenantConnectionProvider.getUsage();
+    }
+}
@@ -0,0 +1,18 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class MemberSearchDto {
+    private Long id;
+    private String username;
+    private int age;
+
+    public MemberSearchDto(Long id, String username, int age) {
+        this.id = id;
+        this.username = username;
+        this.age = age;
+    }
+}
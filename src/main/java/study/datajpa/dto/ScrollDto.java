@@ -0,0 +1,21 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 무한 스크롤 응답. 전체 개수 없이 다음 요청에 넘길 커서만 내려준다.
+ */
+@Getter
+public class ScrollDto<T> {
+    private List<T> content;
+    private boolean hasNext;
+    private Long nextCursor;
+
+    public ScrollDto(List<T> content, boolean hasNext, Long nextCursor) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+}
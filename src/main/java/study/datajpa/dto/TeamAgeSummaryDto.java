@@ -0,0 +1,24 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class TeamAgeSummaryDto {
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private double averageAge;
+    private int minAge;
+    private int maxAge;
+
+    public TeamAgeSummaryDto(Long teamId, String teamName, long memberCount, long ageSum, int minAge, int maxAge) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.averageAge = memberCount == 0 ? 0 : (double) ageSum / memberCount;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+}
@@ -0,0 +1,17 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import study.datajpa.entity.TeamStats;
+
+@Getter
+public class TeamStatsDto {
+    private Long teamId;
+    private long memberCount;
+    private double averageAge;
+
+    public TeamStatsDto(TeamStats teamStats) {
+        this.teamId = teamStats.getTeamId();
+        this.memberCount = teamStats.getMemberCount();
+        this.averageAge = teamStats.getAverageAge();
+    }
+}
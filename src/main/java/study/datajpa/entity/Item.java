@@ -6,17 +6,20 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@DynamicUpdate
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @EntityListeners(AuditingEntityListener.class)
 public class Item implements Persistable<String> {
     /**
      * 사용자 정의 PK를 사용하고자 한다면 Persistable 인터페이스를 활용하자.
+     * 따로 정할 id 가 없다면 TimeOrderedIdGenerator.next() 로 시간 순서 id 를 쓰면 PK 인덱스에 순서대로 들어간다.
      */
     @Id
     private String id;
@@ -1,10 +1,15 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.LazyGroup;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
 @Entity
+@DynamicUpdate
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
@@ -13,15 +18,34 @@ import javax.persistence.*;
         query = "select m from Member m where m.username = :username"
 )
 @NamedEntityGraph(name = "Member.all", attributeNodes = @NamedAttributeNode("team"))
+// existsByUsername, countUpTo(age, limit) 가 인덱스 한 번 탐색으로 끝나도록
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age", columnList = "age")})
 public class Member extends BaseEntity {
 
+    /**
+     * datajpa.id-block.enabled=true 이면 시퀀스에서 블록 단위로 받아 락 없이 할당한다. (BlockIdGenerator)
+     */
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "member_id")
+    @GenericGenerator(name = "member_id", strategy = "study.datajpa.support.BlockIdGenerator",
+            parameters = @Parameter(name = "block_name", value = "member"))
     @Column(name = "member_id")
     private Long id;
     private String username;
     private int age;
 
+    /**
+     * 목록/페이징 조회에는 필요 없는 큰 컬럼은 지연 로딩한다. (바이트코드 향상 필요)
+     * 같은 @LazyGroup 에 속한 속성은 처음 접근할 때 한 번에 로딩된다.
+     * 함께 조회해야 한다면 MemberRepository.findWithProfileByUsername() 처럼 fetch all properties 를 사용하자.
+     */
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("profile")
+    private String profile;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
@@ -52,4 +76,12 @@ public class Member extends BaseEntity {
     public void changeUsername(String username) {
         this.username = username;
     }
+
+    public void changeAge(int age) {
+        this.age = age;
+    }
+
+    public void changeProfile(String profile) {
+        this.profile = profile;
+    }
 }
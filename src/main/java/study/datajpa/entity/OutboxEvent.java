@@ -0,0 +1,44 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Member / Team 변경 이벤트 (transactional outbox)
+ * <p>
+ * 엔티티 변경과 같은 트랜잭션에서 저장되므로 커밋된 변경만 이벤트로 남는다.
+ * 행은 flush 도중 JDBC 로 직접 저장하므로(OutboxWriter) 이 엔티티는 조회와 테이블 생성에만 쓴다.
+ */
+@Entity
+@Getter
+@ToString(of = {"id", "aggregateType", "aggregateId", "eventType", "payload"})
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = @Index(name = "idx_outbox_event_published", columnList = "published, id"))
+public class OutboxEvent {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+    public static final String BULK_UPDATED = "BULK_UPDATED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outbox_event_id")
+    private Long id;
+
+    private String aggregateType;
+    // 벌크 연산 이벤트는 특정 엔티티가 아니므로 null 이다.
+    private String aggregateId;
+    private String eventType;
+
+    @Column(length = 4000)
+    private String payload;
+
+    private LocalDateTime createdDate;
+    private boolean published;
+}
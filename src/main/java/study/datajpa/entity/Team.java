@@ -4,19 +4,29 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@DynamicUpdate
 @Getter
 @ToString(of = {"id", "name"})
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
 public class Team extends BaseTimeEntity {
 
+    /**
+     * datajpa.id-block.enabled=true 이면 시퀀스에서 블록 단위로 받아 락 없이 할당한다. (BlockIdGenerator)
+     */
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "team_id")
+    @GenericGenerator(name = "team_id", strategy = "study.datajpa.support.BlockIdGenerator",
+            parameters = @Parameter(name = "block_name", value = "team"))
     @Column(name = "team_id")
     private Long id;
     private String name;
@@ -0,0 +1,42 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 팀별 회원 수 / 나이 합계 (읽기 모델)
+ * <p>
+ * Member 변경 시 TeamStatsUpdater 가 증분으로 갱신하므로 대시보드는 group by 없이 팀 하나를 바로 조회한다.
+ * 평균 나이는 ageSum / memberCount 로 계산한다.
+ */
+@Entity
+@Getter
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    private long memberCount;
+    private long ageSum;
+
+    public TeamStats(Long teamId) {
+        this.teamId = teamId;
+    }
+
+    public double getAverageAge() {
+        return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+
+    public void reset(long memberCount, long ageSum) {
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+    }
+}
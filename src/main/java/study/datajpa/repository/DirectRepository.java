@@ -0,0 +1,52 @@
+package study.datajpa.repository;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data 리포지토리 프록시를 거치지 않는 구체 클래스 리포지토리의 공통 부분
+ * <p>
+ * Spring Data 리포지토리는 호출마다 프록시, 인터셉터 체인(트랜잭션, 예외 변환, 메타데이터 등록 등),
+ * 쿼리 메서드 조회를 거친다. 단순 조회가 많은 곳에서는 이 비용이 쿼리 비용만큼 보일 때가 있어
+ * JPQL 을 생성 시점에 미리 만들어 두고 EntityManager 를 바로 호출한다.
+ * <p>
+ * 트랜잭션을 열지 않으므로 호출하는 쪽의 트랜잭션(또는 OSIV)을 그대로 쓰고,
+ * 예외 변환 프록시도 없으므로 JPA 예외가 그대로 나온다. 조회 전용으로만 사용하자.
+ * <p>
+ * 리포지토리 프록시에 거는 aspect(조회 결과 재사용, 쿼리 제한, 테넌트 지표 등)와
+ * readOnly 트랜잭션 기반 replica 라우팅도 적용되지 않는다.
+ * 프록시와의 비교는 ./gradlew jmh (RepositoryLookupBenchmark)
+ */
+public abstract class DirectRepository<T, ID> {
+
+    protected final EntityManager em;
+    private final Class<T> domainClass;
+    private final String findAllByIdQuery;
+
+    protected DirectRepository(EntityManager em, Class<T> domainClass) {
+        this.em = em;
+        this.domainClass = domainClass;
+        String entityName = em.getMetamodel().entity(domainClass).getName();
+        this.findAllByIdQuery = "select e from " + entityName + " e where e.id in :ids";
+    }
+
+    public Optional<T> findById(ID id) {
+        return Optional.ofNullable(em.find(domainClass, id));
+    }
+
+    public List<T> findAllById(Collection<ID> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return em.createQuery(findAllByIdQuery, domainClass)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    public T getReference(ID id) {
+        return em.getReference(domainClass, id);
+    }
+}
@@ -0,0 +1,17 @@
+package study.datajpa.repository;
+
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+
+/**
+ * ItemRepository 의 자주 쓰는 조회를 프록시 없이 호출한다. ({@link DirectRepository})
+ */
+@Component
+public class ItemDirectRepository extends DirectRepository<Item, String> {
+
+    public ItemDirectRepository(EntityManager em) {
+        super(em, Item.class);
+    }
+}
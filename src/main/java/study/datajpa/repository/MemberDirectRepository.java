@@ -0,0 +1,27 @@
+package study.datajpa.repository;
+
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * MemberRepository 의 자주 쓰는 조회를 프록시 없이 호출한다. ({@link DirectRepository})
+ */
+@Component
+public class MemberDirectRepository extends DirectRepository<Member, Long> {
+
+    public MemberDirectRepository(EntityManager em) {
+        super(em, Member.class);
+    }
+
+    /**
+     * 애플리케이션 로딩 시점에 파싱해 둔 Member.findByUsername 네임드 쿼리를 사용한다.
+     */
+    public List<Member> findByUsername(String username) {
+        return em.createNamedQuery("Member.findByUsername", Member.class)
+                .setParameter("username", username)
+                .getResultList();
+    }
+}
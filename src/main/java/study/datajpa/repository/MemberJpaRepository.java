@@ -1,17 +1,32 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Member;
+import study.datajpa.support.MemberBulkUpdateListener;
+import study.datajpa.support.PersistenceContextEvictor;
+import study.datajpa.support.PersistenceContextGuard;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 @RequiredArgsConstructor
 public class MemberJpaRepository {
+    static final int PURGE_CHUNK_SIZE = 1000;
+
     private final EntityManager em;
+    private final ObjectProvider<MemberBulkUpdateListener> bulkUpdateListeners;
+    private final ObjectProvider<PersistenceContextGuard> persistenceContextGuard;
 
     public Member save(Member member) {
         em.persist(member);
@@ -68,9 +83,148 @@ public class MemberJpaRepository {
                 .getSingleResult();
     }
 
-    public int bulkAgePlus(int age) {
-        return em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
+    /**
+     * 첫 행을 찾으면 멈춘다. (findByUsername(...).isEmpty() 대신 사용)
+     */
+    public boolean existsByUsername(String username) {
+        return !em.createQuery("select m.id from Member m where m.username = :username", Long.class)
+                .setParameter("username", username)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * limit 개까지만 센다. (totalCount(age) >= N 같은 확인에 사용)
+     */
+    public long countUpTo(int age, int limit) {
+        Object count = em.createNativeQuery("select count(*) from (select 1 from member m where m.age = :age limit :limit) t")
                 .setParameter("age", age)
+                .setParameter("limit", limit)
+                .getSingleResult();
+        return ((Number) count).longValue();
+    }
+
+    /**
+     * 대상 id 가 필요한 리스너(outbox 등)가 있으면 id 를 먼저 조회하고 그 회원만 갱신한다.
+     * 조회와 갱신 사이에 조건에 들어온 회원은 바뀌지 않으므로 리스너에 넘긴 id 와 바뀐 행이 어긋나지 않는다.
+     * 대상이 MemberBulkUpdateListener.MAX_TARGET_IDS 개를 넘으면 조건으로 한 번에 갱신하고 id 없이 알린다.
+     */
+    public int bulkAgePlus(int age) {
+        Set<Long> ids = targetIds(em.createQuery("select m.id from Member m where m.age >= :age order by m.id", Long.class)
+                .setParameter("age", age));
+        int resultCount = 0;
+        if (ids == null) {
+            resultCount = em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
+                    .setParameter("age", age)
+                    .executeUpdate();
+        } else {
+            for (List<Long> chunk : chunks(new ArrayList<>(ids))) {
+                resultCount += em.createQuery("update Member m set m.age = m.age + 1 where m.id in :ids and m.age >= :age")
+                        .setParameter("ids", chunk)
+                        .setParameter("age", age)
+                        .executeUpdate();
+            }
+        }
+
+        notifyBulkUpdate("bulkAgePlus", new Object[]{age}, resultCount, ids);
+        return resultCount;
+    }
+
+    /**
+     * 엔티티를 로딩하지 않고 id 를 PURGE_CHUNK_SIZE 개씩 나눠 delete ... where id in (...) 으로 삭제한다.
+     * 영속성 컨텍스트에 있던 회원은 준영속으로 만들고, 삭제된 행 수를 돌려준다.
+     */
+    public int deleteAllByIdInBatch(Collection<Long> ids) {
+        Set<Long> distinct = new HashSet<>(ids);
+        if (distinct.isEmpty()) {
+            return 0;
+        }
+        int resultCount = 0;
+        for (List<Long> chunk : chunks(new ArrayList<>(distinct))) {
+            resultCount += deleteChunk(chunk);
+        }
+        notifyBulkUpdate("deleteAllByIdInBatch", new Object[0], resultCount,
+                distinct.size() > MemberBulkUpdateListener.MAX_TARGET_IDS ? null : distinct);
+        return resultCount;
+    }
+
+    /**
+     * 조건에 맞는 id 를 PURGE_CHUNK_SIZE 개씩 읽어서 지운다. 문장 하나의 in 절과 undo 로그 크기가 청크로 제한된다.
+     * [주의점]
+     * 모든 청크가 호출한 쪽의 한 트랜잭션에서 실행되므로 지운 행의 락은 커밋까지 쌓인다.
+     * 락을 청크마다 놓으려면 호출하는 쪽에서 청크마다 트랜잭션을 나눠야 한다. (롤백도 청크 단위가 된다)
+     */
+    public int purgeByAgeLessThan(int age) {
+        int resultCount = 0;
+        Set<Long> ids = new HashSet<>();
+        while (true) {
+            List<Long> chunk = em.createQuery("select m.id from Member m where m.age < :age order by m.id", Long.class)
+                    .setParameter("age", age)
+                    .setMaxResults(PURGE_CHUNK_SIZE)
+                    .getResultList();
+            if (chunk.isEmpty()) {
+                break;
+            }
+            resultCount += deleteChunk(chunk);
+            ids = addTargetIds(ids, chunk);
+        }
+        notifyBulkUpdate("purgeByAgeLessThan", new Object[]{age}, resultCount, ids);
+        return resultCount;
+    }
+
+    private int deleteChunk(List<Long> ids) {
+        checkpoint();
+        // 영속성 컨텍스트에 남은 변경이 지운 행을 다시 갱신하지 않도록 먼저 flush 한 뒤 떼어낸다.
+        em.flush();
+        Set<Long> idSet = new HashSet<>(ids);
+        PersistenceContextEvictor.evict(em.unwrap(Session.class), Member.class, member -> idSet.contains(member.getId()));
+        return em.createQuery("delete from Member m where m.id in :ids")
+                .setParameter("ids", ids)
                 .executeUpdate();
     }
+
+    /**
+     * 청크 경계에서 영속성 컨텍스트가 임계치를 넘었으면 flush() 후 clear() 한다. (datajpa.persistence-context-guard.enabled=true)
+     * 벌크 삭제를 호출하는 쪽은 앞에서 조회한 엔티티가 준영속이 될 수 있다.
+     */
+    private void checkpoint() {
+        persistenceContextGuard.ifAvailable(guard -> guard.checkpoint(em));
+    }
+
+    /**
+     * id 가 필요한 리스너가 없거나 MAX_TARGET_IDS 개를 넘으면 null
+     */
+    private Set<Long> targetIds(TypedQuery<Long> query) {
+        if (bulkUpdateListeners.orderedStream().noneMatch(MemberBulkUpdateListener::requiresTargetIds)) {
+            return null;
+        }
+        List<Long> ids = query.setMaxResults(MemberBulkUpdateListener.MAX_TARGET_IDS + 1).getResultList();
+        return ids.size() > MemberBulkUpdateListener.MAX_TARGET_IDS ? null : new LinkedHashSet<>(ids);
+    }
+
+    /**
+     * 대상 id 를 모으다가 MAX_TARGET_IDS 개를 넘으면 null 로 바꾼다. (리스너는 region 전체로 처리한다)
+     */
+    static Set<Long> addTargetIds(Set<Long> ids, Collection<Long> added) {
+        if (ids == null || ids.size() + added.size() > MemberBulkUpdateListener.MAX_TARGET_IDS) {
+            return null;
+        }
+        ids.addAll(added);
+        return ids;
+    }
+
+    private void notifyBulkUpdate(String method, Object[] args, int resultCount, Set<Long> ids) {
+        Session session = em.unwrap(Session.class);
+        bulkUpdateListeners.orderedStream()
+                .forEach(listener -> listener.onBulkUpdate(session, method, args, resultCount, ids));
+    }
+
+    static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += PURGE_CHUNK_SIZE) {
+            chunks.add(values.subList(from, Math.min(values.size(), from + PURGE_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
 }
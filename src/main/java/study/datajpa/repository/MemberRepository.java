@@ -5,9 +5,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.support.QueryLimit;
 
 import javax.persistence.Lob;
 import javax.persistence.LockModeType;
@@ -48,6 +50,11 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     List<MemberDto> findMemberDto(@Param("username") String username, @Param("age") int age);
 
     // in절 활용
+    // names 가 아주 크면 오래 걸리고 결과도 많아지므로 타임아웃과 최대 행 수를 건다. (QueryLimit)
+    @QueryHints({
+            @QueryHint(name = "javax.persistence.query.timeout", value = "3000"),
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500")})
+    @QueryLimit(maxRows = 1000)
     @Query("select m from Member m where m.username in :names")
     List<Member> findByNames(@Param("names") List<String> names);
 
@@ -61,6 +68,18 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 
     Optional<Member> findOptionalByUsername(String username);
 
+    /**
+     * 존재 여부만 필요하면 엔티티를 조회하지 말고 exists 를 쓰자. (첫 행을 찾으면 멈춘다: limit 1)
+     */
+    boolean existsByUsername(String username);
+
+    /**
+     * limit 개까지만 센다. "N명 이상인가" 같은 확인은 전체를 셀 필요가 없다.
+     * (JPQL 은 서브쿼리에 limit 을 쓸 수 없으므로 네이티브 쿼리)
+     */
+    @Query(value = "select count(*) from (select 1 from member m where m.age = :age limit :limit) t", nativeQuery = true)
+    long countUpTo(@Param("age") int age, @Param("limit") int limit);
+
     // Count 쿼리 분리
     @Query(value = "select m from Member m left join m.team t",
             countQuery = "select count(m) from Member m")
@@ -70,21 +89,24 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     // Slice<Member> findByAge(int age, Pageable pageable);
 
     /**
-     * Bulk 연산
-     * <p>
-     * [주의점]
-     * 1. @Modifying 애노테이션이 있어야 excuteUpdate를 실행한다.
-     * 2. 벌크 연산 이후엔 영속성 컨택스트를 꼭 clear() 해줘야 한다. (clearAutomatically = true 속성 추가)
-     * -> clear해주지 않으면 연산 후 영속성 컨택스트와 DB의 싱크가 맞지 않을 수도 있다.
+     * Slice 는 limit + 1 개를 조회해서 다음 페이지 여부만 확인하고 count 쿼리를 실행하지 않는다.
+     * (반환 타입만 다른 findByAge 와 충돌하지 않도록 이름에 Slice 를 붙인다. find와 By 사이의 단어는 무시된다)
      */
-    @Modifying(clearAutomatically = true)
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
-    int bulkAgePlus(@Param("age") int age);
+    Slice<Member> findSliceByAge(int age, Pageable pageable);
+
+    Slice<Member> findSliceBy(Pageable pageable);
+
+    // 키셋(커서) 기반 무한 스크롤: offset 없이 마지막으로 본 id 다음부터 조회하므로 깊이 스크롤해도 느려지지 않는다.
+    Slice<Member> findSliceByIdGreaterThan(Long id, Pageable pageable);
 
     /**
      * fetch는 join 뿐만 아니라 select절에 있는
      * EntityGraph에 프록시 객체가 아닌 실제 엔티티 객체들을 모두 조회해서 넣어준다.
      */
+    @QueryHints({
+            @QueryHint(name = "javax.persistence.query.timeout", value = "5000"),
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500")})
+    @QueryLimit(maxRows = 10_000)
     @Query("select m from Member m left join fetch m.team")
     List<Member> findMemberFetchJoin();
 
@@ -94,16 +116,28 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
      */
     @Override
     @EntityGraph(attributePaths = {"team"})
+    @QueryHints({
+            @QueryHint(name = "javax.persistence.query.timeout", value = "5000"),
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500")})
+    @QueryLimit(maxRows = 10_000)
     List<Member> findAll();
 
     @Query("select m from Member m")
     @EntityGraph(attributePaths = {"team"})
+    @QueryHints({
+            @QueryHint(name = "javax.persistence.query.timeout", value = "5000"),
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500")})
+    @QueryLimit(maxRows = 10_000)
     List<Member> findMemberEntityGraph();
 
     @EntityGraph(attributePaths = {"team"})
     @Query("select m from Member m where m.username = :username")
     List<Member> findEntityGraphByUsername(@Param("username") String username);
 
+    // 지연 로딩 속성(@Basic(fetch = LAZY))까지 한 번에 조회 (Hibernate 전용 문법)
+    @Query("select m from Member m fetch all properties where m.username = :username")
+    List<Member> findWithProfileByUsername(@Param("username") String username);
+
     // Member 엔티티의 namedEntityGraph 이용하는 법 (권장 X)
     //    @EntityGraph("Member.all")
     //    List<Member> findNamedEntityGraphByUsername(@Param("username") String username);
@@ -112,6 +146,8 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
      * 힌트와 락
      */
     // 영속성 컨택스트의 스냅샷으로 저장하지 않는다.
+    // readOnly 트랜잭션이므로 replica 라우팅이 켜져 있으면 replica 에서 조회한다.
+    @Transactional(readOnly = true)
     @QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value = "true"))
     Member findReadOnlyByUsername(String username);
 
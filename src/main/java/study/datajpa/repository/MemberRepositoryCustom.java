@@ -1,11 +1,45 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import study.datajpa.entity.Member;
+import study.datajpa.support.FetchPlan;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface MemberRepositoryCustom {
 
     List<Member> findMemberCustom();
-}
 
+    /**
+     * Bulk 연산 (MemberJpaRepository.bulkAgePlus 에 맡긴다)
+     * <p>
+     * [주의점]
+     * 1. @Query 로 만들 때는 @Modifying 애노테이션이 있어야 excuteUpdate를 실행한다.
+     * 2. 벌크 연산 이후엔 영속성 컨택스트를 꼭 clear() 해줘야 한다. (@Modifying 의 clearAutomatically = true 와 같다)
+     * -> clear해주지 않으면 연산 후 영속성 컨택스트와 DB의 싱크가 맞지 않을 수도 있다.
+     * <p>
+     * 리스너에 넘길 대상 id 와 실제로 바뀐 행을 맞추려고 @Query 대신 직접 구현한다.
+     */
+    int bulkAgePlus(int age);
+
+    /**
+     * member_id 범위를 청크로 나눠 여러 스레드에서 동시에 조회한다.
+     * 워커마다 별도의 EntityManager 와 읽기 전용 트랜잭션을 사용하므로,
+     * 호출한 쪽 트랜잭션에서 아직 커밋하지 않은 데이터는 보이지 않는다.
+     * ordered 가 false 이면 chunkConsumer 는 여러 스레드에서 동시에 호출된다.
+     */
+    ParallelScanProgress scanInParallel(ParallelScanOptions options, Consumer<List<Member>> chunkConsumer);
+
+    /**
+     * findByAge 와 같은 페이징 조회지만 count 쿼리를 다른 커넥션에서 동시에 실행한다. (ParallelPageExecutor)
+     * content 가 페이지 크기보다 작으면 count 결과를 쓰지 않는다.
+     */
+    Page<Member> findByAgeWithParallelCount(int age, Pageable pageable);
+
+    /**
+     * plan 에 선언한 연관관계를 fetch join / batch fetch / 지연 로딩 중 하나로 가져온다. (AdaptiveFetchPlanner)
+     */
+    List<Member> findByFetchPlan(FetchPlan plan, Pageable pageable);
+}
@@ -2,18 +2,173 @@ package study.datajpa.repository;
 
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import study.datajpa.entity.Member;
+import study.datajpa.support.AdaptiveFetchPlanner;
+import study.datajpa.support.FetchPlan;
+import study.datajpa.support.ParallelPageExecutor;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
     private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final ParallelPageExecutor parallelPageExecutor;
+    private final AdaptiveFetchPlanner adaptiveFetchPlanner;
+    private final MemberJpaRepository memberJpaRepository;
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
     }
+
+    @Override
+    public int bulkAgePlus(int age) {
+        int resultCount = memberJpaRepository.bulkAgePlus(age);
+        em.clear();
+        return resultCount;
+    }
+
+    @Override
+    public Page<Member> findByAgeWithParallelCount(int age, Pageable pageable) {
+        String contentQuery = QueryUtils.applySorting("select m from Member m where m.age = :age", pageable.getSort(), "m");
+        return parallelPageExecutor.getPage(pageable,
+                () -> em.createQuery(contentQuery, Member.class)
+                        .setParameter("age", age)
+                        .setFirstResult((int) pageable.getOffset())
+                        .setMaxResults(pageable.getPageSize())
+                        .getResultList(),
+                () -> em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                        .setParameter("age", age)
+                        .getSingleResult());
+    }
+
+    @Override
+    public List<Member> findByFetchPlan(FetchPlan plan, Pageable pageable) {
+        // 없는 속성이면 여기서 IllegalArgumentException
+        plan.getPaths().forEach(path -> em.getMetamodel().entity(Member.class).getAttribute(path));
+
+        return adaptiveFetchPlanner.execute(plan, pageable.getPageSize(), joinPaths -> {
+            StringBuilder jpql = new StringBuilder("select m from Member m");
+            joinPaths.forEach(path -> jpql.append(" left join fetch m.").append(path));
+            return em.createQuery(QueryUtils.applySorting(jpql.toString(), pageable.getSort(), "m"), Member.class)
+                    .setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize())
+                    .getResultList();
+        });
+    }
+
+    @Override
+    public ParallelScanProgress scanInParallel(ParallelScanOptions options, Consumer<List<Member>> chunkConsumer) {
+        Object[] range = em.createQuery("select min(m.id), max(m.id) from Member m", Object[].class)
+                .getSingleResult();
+        if (range[0] == null) {
+            return new ParallelScanProgress(0);
+        }
+        long minId = (Long) range[0];
+        long maxId = (Long) range[1];
+        int chunkSize = options.getChunkSize();
+        ParallelScanProgress progress = new ParallelScanProgress((int) ((maxId - minId) / chunkSize + 1));
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.getParallelism());
+        // 처리되지 않은 청크가 maxInFlight 를 넘으면 제출을 멈춘다.
+        Semaphore inFlight = new Semaphore(options.getMaxInFlight());
+        // 어느 청크든 처음 실패하면 더 제출하지 않고, 대기 중인 청크도 실행하지 않는다.
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        CompletableFuture<Void> previous = CompletableFuture.completedFuture(null);
+        try {
+            for (long from = minId; from <= maxId; from += chunkSize) {
+                inFlight.acquire();
+                if (failure.get() != null) {
+                    inFlight.release();
+                    break;
+                }
+                long chunkFrom = from;
+                CompletableFuture<Void> waitFor = options.isOrdered() ? previous : null;
+                CompletableFuture<Void> chunk = CompletableFuture.runAsync(() -> {
+                    try {
+                        if (failure.get() == null) {
+                            int rows = scanChunk(chunkFrom, chunkFrom + chunkSize, waitFor, chunkConsumer);
+                            progress.chunkCompleted(rows);
+                        }
+                    } catch (RuntimeException e) {
+                        // 세마포어를 풀기 전에 기록해야 다음 제출이 실패를 본다.
+                        failure.compareAndSet(null, e);
+                        throw e;
+                    } finally {
+                        inFlight.release();
+                    }
+                }, executor).thenRun(() -> onChunkCompleted(options, progress));
+                chunks.add(chunk);
+                previous = chunk;
+            }
+            CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("parallel scan interrupted", e);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+        return progress;
+    }
+
+    private void onChunkCompleted(ParallelScanOptions options, ParallelScanProgress progress) {
+        if (options.getProgressListener() != null) {
+            options.getProgressListener().accept(progress);
+        }
+    }
+
+    /**
+     * 워커 전용 EntityManager 로 [from, to) 범위를 읽기 전용으로 조회한다.
+     * 스냅샷을 만들지 않으므로 chunkConsumer 에서 엔티티를 변경해도 반영되지 않는다.
+     */
+    private int scanChunk(long from, long to, CompletableFuture<Void> waitFor, Consumer<List<Member>> chunkConsumer) {
+        EntityManager workerEm = emf.createEntityManager();
+        try {
+            workerEm.unwrap(Session.class).setDefaultReadOnly(true);
+            workerEm.getTransaction().begin();
+
+            List<Member> members = workerEm.createQuery("select m from Member m where m.id >= :from and m.id < :to order by m.id", Member.class)
+                    .setParameter("from", from)
+                    .setParameter("to", to)
+                    .setHint(QueryHints.HINT_READONLY, true)
+                    .getResultList();
+
+            // 순서 보장이 필요하면 앞 청크의 소비가 끝날 때까지 기다린다.
+            if (waitFor != null) {
+                waitFor.join();
+            }
+            if (!members.isEmpty()) {
+                chunkConsumer.accept(members);
+            }
+            return members.size();
+        } finally {
+            if (workerEm.getTransaction().isActive()) {
+                workerEm.getTransaction().rollback();
+            }
+            workerEm.close();
+        }
+    }
 }
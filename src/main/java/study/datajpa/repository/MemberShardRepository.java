@@ -0,0 +1,65 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import study.datajpa.config.ShardRouter;
+import study.datajpa.config.ShardTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 샤딩 환경에서 MemberRepository / TeamRepository 를 감싸는 리포지토리
+ * <p>
+ * 1. Team 은 새로 저장할 때 샤드를 고르고, Member 는 소속 팀의 샤드에 저장한다. (co-location)
+ * 2. 샤드 키(team_id)가 없는 조회는 모든 샤드에 보내고 결과를 병합한다.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "datajpa.sharding", name = "enabled", havingValue = "true")
+public class MemberShardRepository {
+
+    private final ShardTemplate shardTemplate;
+    private final ShardRouter shardRouter;
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+
+    public Team saveTeam(Team team) {
+        return shardTemplate.execute(shardRouter.nextShardForNewTeam(), false, () -> teamRepository.save(team));
+    }
+
+    public Member saveMember(Member member) {
+        Long teamId = member.getTeam() == null ? null : member.getTeam().getId();
+        return shardTemplate.executeForTeam(teamId, () -> memberRepository.save(member));
+    }
+
+    public List<Member> findByUsername(String username) {
+        return shardTemplate.scatter(() -> memberRepository.findByUsername(username))
+                .stream()
+                .flatMap(Collection::stream)
+                .sorted(Comparator.comparing(Member::getId))
+                .collect(Collectors.toList());
+    }
+
+    // Member 와 Team 이 같은 샤드에 있으므로 조인은 각 샤드 안에서 끝난다.
+    public List<MemberDto> findMemberDto(String username, int age) {
+        return shardTemplate.scatter(() -> memberRepository.findMemberDto(username, age))
+                .stream()
+                .flatMap(Collection::stream)
+                .collect(Collectors.toList());
+    }
+
+    public Page<Member> findByAge(int age, Pageable pageable) {
+        Pageable shardPageable = ShardResults.shardPageable(pageable);
+        List<Page<Member>> shardPages = shardTemplate.scatter(() -> memberRepository.findByAge(age, shardPageable));
+        return ShardResults.mergePages(shardPages, pageable);
+    }
+}
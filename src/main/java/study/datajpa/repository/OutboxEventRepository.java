@@ -0,0 +1,21 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import study.datajpa.entity.OutboxEvent;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // relay 가 아직 발행하지 않은 이벤트를 순서대로 가져간다.
+    // 마지막으로 읽은 id 를 커서로 쓰지 않는다. id 는 insert 때 정해지므로 늦게 커밋된 트랜잭션의 작은 id 를 건너뛴다.
+    List<OutboxEvent> findByPublishedFalseOrderByIdAsc(Pageable pageable);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update OutboxEvent e set e.published = true where e.id in :ids")
+    int markPublished(@Param("ids") List<Long> ids);
+}
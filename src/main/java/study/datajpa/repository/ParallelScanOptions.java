@@ -0,0 +1,39 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+
+import java.util.function.Consumer;
+
+/**
+ * 병렬 청크 스캔 옵션
+ * <p>
+ * chunkSize: 한 청크가 담당하는 member_id 범위
+ * parallelism: 동시에 실행되는 워커 수 (워커마다 커넥션 하나를 사용한다)
+ * maxInFlight: 제출됐지만 처리되지 않은 청크의 최대 개수 (backpressure)
+ * ordered: true 이면 청크를 member_id 순서대로 소비한다.
+ */
+@Getter
+public class ParallelScanOptions {
+
+    private final int chunkSize;
+    private final int parallelism;
+    private final int maxInFlight;
+    private final boolean ordered;
+    private final Consumer<ParallelScanProgress> progressListener;
+
+    public ParallelScanOptions(int chunkSize, int parallelism, int maxInFlight, boolean ordered,
+                               Consumer<ParallelScanProgress> progressListener) {
+        if (chunkSize < 1 || parallelism < 1 || maxInFlight < parallelism) {
+            throw new IllegalArgumentException("chunkSize, parallelism >= 1 and maxInFlight >= parallelism");
+        }
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.maxInFlight = maxInFlight;
+        this.ordered = ordered;
+        this.progressListener = progressListener;
+    }
+
+    public static ParallelScanOptions of(int chunkSize, int parallelism) {
+        return new ParallelScanOptions(chunkSize, parallelism, parallelism * 2, false, null);
+    }
+}
@@ -0,0 +1,47 @@
+package study.datajpa.repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 병렬 청크 스캔 진행 상황
+ */
+public class ParallelScanProgress {
+
+    private final int totalChunks;
+    private final long startedAt = System.nanoTime();
+    private final AtomicInteger completedChunks = new AtomicInteger();
+    private final AtomicLong processedRows = new AtomicLong();
+
+    public ParallelScanProgress(int totalChunks) {
+        this.totalChunks = totalChunks;
+    }
+
+    void chunkCompleted(int rows) {
+        processedRows.addAndGet(rows);
+        completedChunks.incrementAndGet();
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public int getCompletedChunks() {
+        return completedChunks.get();
+    }
+
+    public long getProcessedRows() {
+        return processedRows.get();
+    }
+
+    public double getRowsPerSecond() {
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        return seconds == 0 ? 0 : processedRows.get() / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelScanProgress(" + getCompletedChunks() + "/" + totalChunks + " chunks, "
+                + getProcessedRows() + " rows, " + String.format("%.1f", getRowsPerSecond()) + " rows/s)";
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 벌크 삭제로 지워진 행 수
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class PurgeResult {
+    private final int members;
+    private final int teams;
+}
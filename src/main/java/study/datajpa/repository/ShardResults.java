@@ -0,0 +1,65 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 샤드별 조회 결과 병합 (scatter-gather)
+ */
+public class ShardResults {
+
+    /**
+     * 각 샤드에서 0 ~ (offset + size) 까지 정렬해서 가져온 결과를 다시 정렬한 뒤 요청한 페이지만 잘라낸다.
+     * 전체 개수는 샤드별 count 의 합이다.
+     */
+    public static <T> Page<T> mergePages(List<Page<T>> shardPages, Pageable pageable) {
+        List<T> content = shardPages.stream()
+                .flatMap(page -> page.getContent().stream())
+                .sorted(comparatorOf(pageable.getSort()))
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .collect(Collectors.toList());
+
+        long total = shardPages.stream()
+                .mapToLong(Page::getTotalElements)
+                .sum();
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * 샤드에 보낼 페이지 요청. 어느 샤드에 결과가 몰려 있을지 모르므로 항상 첫 페이지부터 가져온다.
+     */
+    public static Pageable shardPageable(Pageable pageable) {
+        return PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize(), pageable.getSort());
+    }
+
+    public static Comparator<Object> comparatorOf(Sort sort) {
+        Comparator<Object> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            comparator = comparator.thenComparing(propertyComparator(order));
+        }
+        return comparator;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Object> propertyComparator(Sort.Order order) {
+        Comparator<Object> comparator = (a, b) -> {
+            Comparable left = (Comparable) new BeanWrapperImpl(a).getPropertyValue(order.getProperty());
+            Comparable right = (Comparable) new BeanWrapperImpl(b).getPropertyValue(order.getProperty());
+            if (left == null || right == null) {
+                return left == null ? (right == null ? 0 : 1) : -1;
+            }
+            return left.compareTo(right);
+        };
+        return order.isAscending() ? comparator : comparator.reversed();
+    }
+}
@@ -0,0 +1,17 @@
+package study.datajpa.repository;
+
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+
+/**
+ * TeamRepository 의 자주 쓰는 조회를 프록시 없이 호출한다. ({@link DirectRepository})
+ */
+@Component
+public class TeamDirectRepository extends DirectRepository<Team, Long> {
+
+    public TeamDirectRepository(EntityManager em) {
+        super(em, Team.class);
+    }
+}
@@ -1,19 +1,30 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.support.MemberBulkUpdateListener;
+import study.datajpa.support.PersistenceContextEvictor;
+import study.datajpa.support.PersistenceContextGuard;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 @RequiredArgsConstructor
 public class TeamJpaRepository {
     private final EntityManager em;
+    private final ObjectProvider<MemberBulkUpdateListener> bulkUpdateListeners;
+    private final ObjectProvider<PersistenceContextGuard> persistenceContextGuard;
 
     public Team save(Team team) {
         em.persist(team);
@@ -42,4 +53,68 @@ public class TeamJpaRepository {
     public Team find(Long id) {
         return em.find(Team.class, id);
     }
+
+    public boolean existsByName(String name) {
+        return !em.createQuery("select t.id from Team t where t.name = :name", Long.class)
+                .setParameter("name", name)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * limit 개까지만 센다. (count() >= N 같은 확인에 사용)
+     */
+    public long countUpTo(int limit) {
+        Object count = em.createNativeQuery("select count(*) from (select 1 from team t limit :limit) x")
+                .setParameter("limit", limit)
+                .getSingleResult();
+        return ((Number) count).longValue();
+    }
+
+    /**
+     * 팀과 소속 회원을 로딩하지 않고 삭제한다.
+     * member.team_id 외래 키 때문에 청크마다 회원을 먼저 지우고 팀을 지운다.
+     * 영속성 컨텍스트에 있던 팀과 회원은 준영속으로 만든다.
+     * 청크 경계에서 영속성 컨텍스트가 임계치를 넘었으면 flush() 후 clear() 한다. (PersistenceContextGuard)
+     * 지운 회원 id 는 원하는 리스너가 있을 때 MAX_TARGET_IDS 개까지만 모으고, 넘으면 id 없이 알린다.
+     */
+    public PurgeResult purge(Collection<Long> teamIds) {
+        Set<Long> distinct = new HashSet<>(teamIds);
+        if (distinct.isEmpty()) {
+            return new PurgeResult(0, 0);
+        }
+        Session session = em.unwrap(Session.class);
+        int members = 0;
+        int teams = 0;
+        Set<Long> memberIds = bulkUpdateListeners.orderedStream().anyMatch(MemberBulkUpdateListener::requiresTargetIds)
+                ? new HashSet<>() : null;
+        for (List<Long> chunk : MemberJpaRepository.chunks(new ArrayList<>(distinct))) {
+            persistenceContextGuard.ifAvailable(guard -> guard.checkpoint(em));
+            em.flush();
+            Set<Long> idSet = new HashSet<>(chunk);
+            PersistenceContextEvictor.evict(session, Member.class, member -> member.getTeam() != null && idSet.contains(member.getTeam().getId()));
+            PersistenceContextEvictor.evict(session, Team.class, team -> idSet.contains(team.getId()));
+
+            if (memberIds != null) {
+                List<Long> chunkMemberIds = em.createQuery("select m.id from Member m where m.team.id in :teamIds", Long.class)
+                        .setParameter("teamIds", chunk)
+                        .setMaxResults(MemberBulkUpdateListener.MAX_TARGET_IDS + 1)
+                        .getResultList();
+                memberIds = MemberJpaRepository.addTargetIds(memberIds, chunkMemberIds);
+            }
+            members += em.createQuery("delete from Member m where m.team.id in :teamIds")
+                    .setParameter("teamIds", chunk)
+                    .executeUpdate();
+            teams += em.createQuery("delete from Team t where t.id in :teamIds")
+                    .setParameter("teamIds", chunk)
+                    .executeUpdate();
+        }
+
+        int memberCount = members;
+        Set<Long> purgedMemberIds = memberIds;
+        bulkUpdateListeners.orderedStream()
+                .forEach(listener -> listener.onBulkUpdate(session, "purgeTeams", new Object[]{distinct}, memberCount, purgedMemberIds));
+        return new PurgeResult(members, teams);
+    }
 }
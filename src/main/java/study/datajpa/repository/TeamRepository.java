@@ -1,7 +1,21 @@
 package study.datajpa.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import study.datajpa.entity.Team;
+import study.datajpa.support.QueryLimit;
+
+import javax.persistence.QueryHint;
+import java.util.List;
 
 public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    @Override
+    @QueryHints({
+            @QueryHint(name = "javax.persistence.query.timeout", value = "5000"),
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500")})
+    @QueryLimit(maxRows = 10_000)
+    List<Team> findAll();
+
+    boolean existsByName(String name);
 }
@@ -0,0 +1,7 @@
+package study.datajpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import study.datajpa.entity.TeamStats;
+
+public interface TeamStatsRepository extends JpaRepository<TeamStats, Long> {
+}
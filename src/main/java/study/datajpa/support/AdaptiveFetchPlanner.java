@@ -0,0 +1,225 @@
+package study.datajpa.support;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * FetchPlan 에 선언된 연관관계를 어떻게 가져올지 호출마다 고른다.
+ * <p>
+ * 1. JOIN: 결과가 joinMaxResults 이하이면 fetch join 으로 한 번에 가져온다.
+ * 2. BATCH: 결과가 크면 조회 직후 프록시 하나를 초기화해 default_batch_fetch_size 단위 in 쿼리로 가져온다.
+ * 3. NONE: 관찰해 보니 거의 접근하지 않으면 가져오지 않는다. (접근하면 그때 batch fetch 된다)
+ * <p>
+ * 접근 여부는 fetch 하지 않고 실행한 표본 호출에서, 결과의 연관관계 프록시가 나중에 초기화되었는지로 판단한다.
+ * 처음 minSamples 번과 그 뒤 sampleEvery 번마다 한 번은 표본 호출이다.
+ * 표본은 다음 표본 호출(또는 report)에서 확인하므로 그 사이 아직 끝나지 않은 요청의 접근은 놓칠 수 있다.
+ * <p>
+ * 가져온 연관관계도 접근했는지 본다. (fetchedButUnused)
+ * BATCH 는 직접 초기화한 첫 프록시 말고는 batch fetch 로 엔티티만 올라오고 프록시는 접근할 때 초기화되므로,
+ * 나머지 프록시를 다음 호출에서 확인한다. fetch join 한 결과는 프록시가 아니라 알 수 없으므로
+ * JOIN 으로 정해진 호출도 sampleEvery 번에 한 번은 BATCH 로 가져와 확인한다.
+ */
+@Component
+public class AdaptiveFetchPlanner {
+
+    public enum Strategy {
+        JOIN, BATCH, NONE
+    }
+
+    private static final int SAMPLE_SIZE = 64;
+
+    private final int joinMaxResults;
+    private final int sampleEvery;
+    private final int minSamples;
+    private final double minAccessRatio;
+    private final Map<String, PathStats> stats = new ConcurrentHashMap<>();
+
+    public AdaptiveFetchPlanner(@Value("${datajpa.fetch-plan.join-max-results:100}") int joinMaxResults,
+                                @Value("${datajpa.fetch-plan.sample-every:20}") int sampleEvery,
+                                @Value("${datajpa.fetch-plan.min-samples:5}") int minSamples,
+                                @Value("${datajpa.fetch-plan.min-access-ratio:0.1}") double minAccessRatio) {
+        this.joinMaxResults = joinMaxResults;
+        this.sampleEvery = sampleEvery;
+        this.minSamples = minSamples;
+        this.minAccessRatio = minAccessRatio;
+    }
+
+    /**
+     * @param expectedResults 예상 결과 수 (보통 페이지 크기)
+     * @param query           fetch join 할 경로를 받아 조회한다
+     */
+    public <T> List<T> execute(FetchPlan plan, int expectedResults, Function<Set<String>, List<T>> query) {
+        Map<String, Decision> decisions = new LinkedHashMap<>();
+        Set<String> joinPaths = new LinkedHashSet<>();
+        for (String path : plan.getPaths()) {
+            Decision decision = pathStats(plan.getCallSite(), path).decide(expectedResults);
+            decisions.put(path, decision);
+            if (decision.strategy == Strategy.JOIN) {
+                joinPaths.add(path);
+            }
+        }
+
+        List<T> results = query.apply(Collections.unmodifiableSet(joinPaths));
+
+        decisions.forEach((path, decision) -> {
+            List<Object> values = associations(results, path);
+            if (decision.strategy == Strategy.BATCH && !values.isEmpty()) {
+                Hibernate.initialize(values.get(0));
+            }
+            pathStats(plan.getCallSite(), path).record(decision, values);
+        });
+        return results;
+    }
+
+    public List<FetchPlanStats> report() {
+        List<FetchPlanStats> report = new ArrayList<>();
+        stats.values().forEach(pathStats -> report.add(pathStats.toStats()));
+        report.sort(Comparator.comparing(FetchPlanStats::getCallSite).thenComparing(FetchPlanStats::getPath));
+        return report;
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    private PathStats pathStats(String callSite, String path) {
+        return stats.computeIfAbsent(callSite + "#" + path, key -> new PathStats(callSite, path));
+    }
+
+    private static List<Object> associations(List<?> results, String path) {
+        List<Object> values = new ArrayList<>();
+        for (Object result : results) {
+            // 바이트코드 향상된 엔티티도 필드를 직접 읽으면 지연 로딩을 건드리지 않는다.
+            Object value = PropertyAccessorFactory.forDirectFieldAccess(result).getPropertyValue(path);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    private static class Decision {
+        private final Strategy strategy;
+        private final boolean sampling;
+
+        Decision(Strategy strategy, boolean sampling) {
+            this.strategy = strategy;
+            this.sampling = sampling;
+        }
+    }
+
+    private class PathStats {
+        private final String callSite;
+        private final String path;
+        private long calls;
+        private long joinFetched;
+        private long batchFetched;
+        private long notFetched;
+        private long sampled;
+        private long accessed;
+        private long fetchedSampled;
+        private long fetchedAccessed;
+        private List<Object> pendingSample;
+        private List<Object> pendingFetchedSample;
+
+        PathStats(String callSite, String path) {
+            this.callSite = callSite;
+            this.path = path;
+        }
+
+        synchronized Decision decide(int expectedResults) {
+            harvest();
+            long call = calls++;
+            if (sampled < minSamples || call % sampleEvery == 0) {
+                return new Decision(Strategy.NONE, true);
+            }
+            if ((double) accessed / sampled < minAccessRatio) {
+                return new Decision(Strategy.NONE, false);
+            }
+            // fetch join 결과로는 접근 여부를 알 수 없으므로 가끔 BATCH 로 가져와 확인한다.
+            if (expectedResults > joinMaxResults || call % sampleEvery == 1) {
+                return new Decision(Strategy.BATCH, false);
+            }
+            return new Decision(Strategy.JOIN, false);
+        }
+
+        synchronized void record(Decision decision, List<Object> values) {
+            if (decision.strategy == Strategy.JOIN) {
+                joinFetched++;
+            } else if (decision.strategy == Strategy.BATCH) {
+                batchFetched++;
+            } else {
+                notFetched++;
+            }
+            if (decision.strategy == Strategy.BATCH) {
+                List<Object> sample = uninitialized(values);
+                if (!sample.isEmpty()) {
+                    harvest();
+                    pendingFetchedSample = sample;
+                }
+                return;
+            }
+            if (!decision.sampling) {
+                return;
+            }
+            List<Object> sample = uninitialized(values);
+            if (!sample.isEmpty()) {
+                harvest();
+                pendingSample = sample;
+            }
+        }
+
+        /**
+         * 이미 초기화된 것(영속성 컨택스트에 먼저 올라와 있던 것, BATCH 에서 직접 초기화한 것)은 접근 여부를 알려주지 않는다.
+         */
+        private List<Object> uninitialized(List<Object> values) {
+            List<Object> sample = new ArrayList<>();
+            for (Object value : values) {
+                if (!Hibernate.isInitialized(value)) {
+                    sample.add(value);
+                    if (sample.size() == SAMPLE_SIZE) {
+                        break;
+                    }
+                }
+            }
+            return sample;
+        }
+
+        private void harvest() {
+            if (pendingSample != null) {
+                sampled++;
+                if (pendingSample.stream().anyMatch(Hibernate::isInitialized)) {
+                    accessed++;
+                }
+                pendingSample = null;
+            }
+            if (pendingFetchedSample != null) {
+                fetchedSampled++;
+                if (pendingFetchedSample.stream().anyMatch(Hibernate::isInitialized)) {
+                    fetchedAccessed++;
+                }
+                pendingFetchedSample = null;
+            }
+        }
+
+        synchronized FetchPlanStats toStats() {
+            harvest();
+            boolean unused = fetchedSampled >= minSamples && fetchedAccessed == 0;
+            return new FetchPlanStats(callSite, path, joinFetched, batchFetched, notFetched, sampled, accessed,
+                    fetchedSampled, fetchedAccessed, unused);
+        }
+    }
+}
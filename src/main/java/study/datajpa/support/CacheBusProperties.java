@@ -0,0 +1,34 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datajpa.cache-bus")
+public class CacheBusProperties {
+
+    private boolean enabled;
+    /**
+     * 무효화를 모아서 보내는 최대 지연 시간
+     */
+    private long maxDelayMillis = 50;
+    /**
+     * 모인 id 가 이만큼이 되면 기다리지 않고 보낸다.
+     */
+    private int maxPending = 1000;
+    /**
+     * 변경이 없어도 마지막 순번을 알린다. 받는 쪽은 이걸로 유실을 알아챈다.
+     */
+    private long heartbeatMillis = 1000;
+
+    private int port = 47100;
+    /**
+     * 다른 노드 주소 ex) 10.0.0.2:47100
+     */
+    private List<String> peers = new ArrayList<>();
+}
@@ -0,0 +1,309 @@
+package study.datajpa.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 노드 사이 캐시 무효화 버스
+ * <p>
+ * 1. 커밋된 변경을 (region, id) 로 모아 중복을 없애고, maxDelayMillis 마다 또는 maxPending 개가 모이면 한 메시지로 보낸다.
+ * 2. 메시지는 region 별로 정렬한 id 를 차이값(varint)으로 담아 작게 만든다.
+ * 3. 노드마다 메시지에 순번을 붙이고 heartbeat 로 마지막 순번을 알린다.
+ *    받는 쪽은 순번이 건너뛰면(유실) 무엇이 바뀌었는지 모르므로 전체를 무효화한다. (분산 락이나 브로커 없이 일관성을 지킨다)
+ *    처음 보는 노드의 첫 메시지가 1번이 아니어도 유실로 본다.
+ * <p>
+ * 자기 노드의 변경은 각 캐시가 커밋 후에 직접 반영하므로 다른 노드에만 전달한다.
+ */
+@Slf4j
+public class CacheInvalidationBus implements DisposableBean {
+
+    private static final byte VERSION = 1;
+    static final byte BATCH = 1;
+    static final byte HEARTBEAT = 2;
+
+    private final long nodeId = new SecureRandom().nextLong();
+    // 재시작하면 순번이 다시 시작하므로 시작 시각으로 구분한다.
+    private final long epoch = System.currentTimeMillis();
+    private final InvalidationTransport transport;
+    private final List<CacheInvalidationListener> listeners;
+    private final int maxPending;
+    private final ScheduledExecutorService scheduler;
+    private final Map<Long, PeerState> peers = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+    private Map<String, Set<Long>> pendingIds = new HashMap<>();
+    private Set<String> pendingRegions = new HashSet<>();
+    private int pendingCount;
+
+    // 순번 증가와 전송 순서를 맞춘다.
+    private final Object sendLock = new Object();
+    private long sequence;
+
+    public CacheInvalidationBus(InvalidationTransport transport, List<CacheInvalidationListener> listeners,
+                                CacheBusProperties properties) {
+        this.transport = transport;
+        this.listeners = List.copyOf(listeners);
+        this.maxPending = properties.getMaxPending();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache-invalidation-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                properties.getMaxDelayMillis(), properties.getMaxDelayMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::heartbeatQuietly,
+                properties.getHeartbeatMillis(), properties.getHeartbeatMillis(), TimeUnit.MILLISECONDS);
+        transport.subscribe(this::receive);
+    }
+
+    public void invalidate(String region, Collection<Long> ids) {
+        boolean full;
+        synchronized (lock) {
+            if (pendingRegions.contains(region)) {
+                return;
+            }
+            Set<Long> regionIds = pendingIds.computeIfAbsent(region, key -> new HashSet<>());
+            for (Long id : ids) {
+                if (regionIds.add(id)) {
+                    pendingCount++;
+                }
+            }
+            full = pendingCount >= maxPending;
+        }
+        if (full) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    public void invalidateRegion(String region) {
+        synchronized (lock) {
+            Set<Long> ids = pendingIds.remove(region);
+            if (ids != null) {
+                pendingCount -= ids.size();
+            }
+            pendingRegions.add(region);
+        }
+    }
+
+    /**
+     * 모인 무효화를 한 메시지로 보낸다.
+     */
+    public void flush() {
+        synchronized (sendLock) {
+            Map<String, Set<Long>> ids;
+            Set<String> regions;
+            synchronized (lock) {
+                if (pendingIds.isEmpty() && pendingRegions.isEmpty()) {
+                    return;
+                }
+                ids = pendingIds;
+                regions = pendingRegions;
+                pendingIds = new HashMap<>();
+                pendingRegions = new HashSet<>();
+                pendingCount = 0;
+            }
+            sequence++;
+            transport.send(encode(new Message(BATCH, nodeId, epoch, sequence, ids, regions)));
+        }
+    }
+
+    public void heartbeat() {
+        synchronized (sendLock) {
+            transport.send(encode(new Message(HEARTBEAT, nodeId, epoch, sequence, Map.of(), Set.of())));
+        }
+    }
+
+    void receive(byte[] bytes) {
+        Message message = decode(bytes);
+        if (message.nodeId == nodeId) {
+            return;
+        }
+        boolean[] lost = new boolean[1];
+        boolean[] fresh = new boolean[1];
+        peers.compute(message.nodeId, (node, state) -> {
+            if (state != null && state.epoch == message.epoch && message.sequence <= state.sequence) {
+                // 중복이거나 늦게 도착한 메시지, 또는 새 소식이 없는 heartbeat
+                return state;
+            }
+            if (state == null) {
+                // 처음 보는 노드가 이미 보낸 메시지가 있으면 그 사이 무엇이 바뀌었는지 모른다.
+                lost[0] = message.kind == HEARTBEAT ? message.sequence > 0 : message.sequence > 1;
+            } else {
+                // 재시작했거나, 순번이 건너뛰었거나, heartbeat 가 받지 못한 순번을 알려 준 경우
+                lost[0] = state.epoch != message.epoch
+                        || message.sequence > state.sequence + 1
+                        || message.kind == HEARTBEAT;
+            }
+            fresh[0] = message.kind == BATCH;
+            return new PeerState(message.epoch, message.sequence);
+        });
+
+        if (lost[0]) {
+            log.warn("cache invalidations from node {} were lost, invalidating all caches", Long.toHexString(message.nodeId));
+            listeners.forEach(CacheInvalidationListener::invalidateAll);
+        } else if (fresh[0]) {
+            for (String region : message.regions) {
+                listeners.forEach(listener -> listener.invalidateRegion(region));
+            }
+            message.ids.forEach((region, ids) -> listeners.forEach(listener -> listener.invalidate(region, ids)));
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        flushQuietly();
+        transport.close();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("failed to send cache invalidations", e);
+        }
+    }
+
+    private void heartbeatQuietly() {
+        try {
+            heartbeat();
+        } catch (RuntimeException e) {
+            log.warn("failed to send cache invalidation heartbeat", e);
+        }
+    }
+
+    // version, kind, node, epoch, sequence, region 수, [region, id 수, 정렬된 id 의 차이값 varint...], 전체 무효화 region 수, [region...]
+
+    static byte[] encode(Message message) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(message.kind);
+            out.writeLong(message.nodeId);
+            out.writeLong(message.epoch);
+            writeVarLong(out, message.sequence);
+            writeVarLong(out, message.ids.size());
+            for (Map.Entry<String, Set<Long>> entry : message.ids.entrySet()) {
+                out.writeUTF(entry.getKey());
+                writeVarLong(out, entry.getValue().size());
+                long previous = 0;
+                for (long id : new TreeSet<>(entry.getValue())) {
+                    writeVarLong(out, id - previous);
+                    previous = id;
+                }
+            }
+            writeVarLong(out, message.regions.size());
+            for (String region : message.regions) {
+                out.writeUTF(region);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Message decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("unknown cache invalidation message version: " + version);
+            }
+            byte kind = in.readByte();
+            long nodeId = in.readLong();
+            long epoch = in.readLong();
+            long sequence = readVarLong(in);
+
+            Map<String, Set<Long>> ids = new LinkedHashMap<>();
+            long regionCount = readVarLong(in);
+            for (long r = 0; r < regionCount; r++) {
+                String region = in.readUTF();
+                long count = readVarLong(in);
+                Set<Long> regionIds = new HashSet<>();
+                long id = 0;
+                for (long i = 0; i < count; i++) {
+                    id += readVarLong(in);
+                    regionIds.add(id);
+                }
+                ids.put(region, regionIds);
+            }
+            Set<String> regions = new HashSet<>();
+            long wholeCount = readVarLong(in);
+            for (long r = 0; r < wholeCount; r++) {
+                regions.add(in.readUTF());
+            }
+            return new Message(kind, nodeId, epoch, sequence, ids, regions);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("malformed cache invalidation message: " + Arrays.toString(bytes), e);
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint is too long");
+    }
+
+    static class Message {
+        final byte kind;
+        final long nodeId;
+        final long epoch;
+        final long sequence;
+        final Map<String, Set<Long>> ids;
+        final Set<String> regions;
+
+        Message(byte kind, long nodeId, long epoch, long sequence, Map<String, Set<Long>> ids, Set<String> regions) {
+            this.kind = kind;
+            this.nodeId = nodeId;
+            this.epoch = epoch;
+            this.sequence = sequence;
+            this.ids = ids;
+            this.regions = regions;
+        }
+    }
+
+    private static class PeerState {
+        private final long epoch;
+        private final long sequence;
+
+        PeerState(long epoch, long sequence) {
+            this.epoch = epoch;
+            this.sequence = sequence;
+        }
+    }
+}
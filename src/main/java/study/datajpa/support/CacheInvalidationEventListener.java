@@ -0,0 +1,96 @@
+package study.datajpa.support;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Member / Team 변경과 Member 벌크 연산을 커밋 뒤에 CacheInvalidationBus 로 보낸다. (롤백된 변경은 보내지 않는다)
+ * <p>
+ * changeUsername, changeTeam 같은 변경은 엔티티 id 로 보낸다.
+ * 벌크 연산은 대상 id 를 알고 MAX_BULK_IDS 개 이하이면 id 로, 아니면 Member region 전체로 보낸다.
+ * purgeTeams 는 삭제한 팀 id 도 함께 보낸다.
+ */
+@RequiredArgsConstructor
+public class CacheInvalidationEventListener
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener, MemberBulkUpdateListener {
+
+    private static final int MAX_BULK_IDS = 1_000;
+
+    private final CacheInvalidationBus bus;
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public boolean requiresTargetIds() {
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onBulkUpdate(Session session, String method, Object[] args, Object rows, Set<Long> ids) {
+        if (ids == null || ids.size() > MAX_BULK_IDS) {
+            afterCommit(() -> bus.invalidateRegion("Member"));
+        } else if (!ids.isEmpty()) {
+            Set<Long> memberIds = Set.copyOf(ids);
+            afterCommit(() -> bus.invalidate("Member", memberIds));
+        }
+        if (method.equals("purgeTeams")) {
+            Set<Long> teamIds = Set.copyOf((Collection<Long>) args[0]);
+            afterCommit(() -> bus.invalidate("Team", teamIds));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void changed(Object entity, Object id) {
+        if (!(entity instanceof Member) && !(entity instanceof Team)) {
+            return;
+        }
+        String region = entity instanceof Member ? "Member" : "Team";
+        Set<Long> ids = Set.of(((Number) id).longValue());
+        afterCommit(() -> bus.invalidate(region, ids));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.support;
+
+import java.util.Set;
+
+/**
+ * 다른 노드에서 일어난 변경으로 이 노드의 캐시를 무효화한다. (CacheInvalidationBus)
+ * <p>
+ * region 은 엔티티 이름(Member, Team)이거나 쿼리 결과 캐시 이름이다.
+ */
+public interface CacheInvalidationListener {
+
+    void invalidate(String region, Set<Long> ids);
+
+    void invalidateRegion(String region);
+
+    /**
+     * 메시지가 유실되어 무엇이 바뀌었는지 알 수 없을 때 호출된다.
+     */
+    void invalidateAll();
+}
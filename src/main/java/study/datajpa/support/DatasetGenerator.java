@@ -0,0 +1,357 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 부하 테스트용 Team / Member / Item 데이터를 만든다.
+ * <p>
+ * 1. 결정적: 각 행은 (seed, 행 번호)만으로 정해지므로 청크 크기나 병렬도가 달라도 같은 데이터가 나온다.
+ * 2. 팀 크기는 Zipf 분포라 소수의 큰 팀과 다수의 작은 팀이 생긴다. 일부 회원은 팀이 없다.
+ * 3. username 은 인기 있는 이름일수록 자주 나오고 여러 표기(minjunkim, minjun92, minjun.kim ...)가 섞여 중복이 생긴다.
+ * 4. 적재는 엔티티를 거치지 않고 청크마다 별도 커넥션에서 JDBC 배치 insert 후 커밋한다.
+ * <p>
+ * id 는 적재 전에 hibernate_sequence 에서 필요한 개수만큼 한 번에 예약하고 (increment by 개수 로 한 번 호출),
+ * 블록 시퀀스도 예약한 범위 뒤로 옮긴 뒤에 적재한다. 적재 중에 앱이 insert 해도 id 가 겹치지 않는다.
+ * 엔티티 이벤트를 거치지 않으므로 team_stats 등 파생 데이터는 따로 다시 계산해야 한다. (TeamStatsReconciler)
+ */
+@Slf4j
+public class DatasetGenerator {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2022, 1, 1, 0, 0);
+    private static final long SPAN_SECONDS = 2L * 365 * 24 * 60 * 60;
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    // 대략 인기 순
+    private static final String[] GIVEN_NAMES = {
+            "minjun", "seoyeon", "jiho", "hayoon", "doyun", "seoa", "james", "olivia", "eunwoo", "jiwoo",
+            "siwoo", "suah", "junwoo", "jia", "emma", "liam", "yejun", "harin", "noah", "sophia",
+            "juwon", "chaewon", "hyunwoo", "jiyu", "daniel", "mia", "gunwoo", "yuna", "lucas", "ava",
+            "taeyang", "soyul", "ethan", "isabella", "minseo", "joon", "grace", "leo", "nari", "oliver"
+    };
+    private static final String[] FAMILY_NAMES = {
+            "kim", "lee", "park", "choi", "jung", "kang", "cho", "yoon", "jang", "lim",
+            "smith", "johnson", "brown", "han", "oh", "seo", "shin", "kwon", "hwang", "ahn"
+    };
+    private static final String[] TEAM_WORDS = {
+            "platform", "payments", "search", "growth", "mobile", "infra", "data", "checkout",
+            "identity", "ads", "billing", "catalog", "delivery", "support", "security", "reviews"
+    };
+
+    private static final String TEAM_SQL =
+            "insert into team (team_id, name, created_date, last_modified_date) values (?, ?, ?, ?)";
+    private static final String MEMBER_SQL = "insert into member (member_id, username, age, team_id," +
+            " created_date, last_modified_date, created_by, updated_by) values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String ITEM_SQL = "insert into item (id, created_date) values (?, ?)";
+
+    private final DataSource dataSource;
+    private final DatasetProperties properties;
+    private final double[] teamCdf;
+    private final double[] givenNameCdf;
+
+    public DatasetGenerator(DataSource dataSource, DatasetProperties properties) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+        this.teamCdf = zipfCdf(properties.getTeams(), properties.getTeamSkew());
+        this.givenNameCdf = zipfCdf(GIVEN_NAMES.length, 1.0);
+    }
+
+    /**
+     * index 번째 회원. 같은 seed 면 항상 같은 값이다.
+     */
+    public GeneratedMember member(long index) {
+        Draws draws = new Draws(properties.getSeed(), index);
+
+        String given = GIVEN_NAMES[sample(givenNameCdf, draws.next())];
+        String family = FAMILY_NAMES[(int) (draws.next() * FAMILY_NAMES.length)];
+        double style = draws.next();
+        String username;
+        if (style < 0.35) {
+            username = given + family;
+        } else if (style < 0.6) {
+            username = given + (70 + (int) (draws.next() * 35)) % 100;
+        } else if (style < 0.8) {
+            username = given + "." + family;
+        } else {
+            username = given + "_" + (int) (draws.next() * 10_000);
+        }
+
+        // 대략 35세 중심의 종 모양 분포
+        int age = 35 + (int) ((draws.next() + draws.next() + draws.next() - 1.5) * 24);
+        int teamIndex = draws.next() < properties.getNoTeamRatio() || teamCdf.length == 0
+                ? -1
+                : sample(teamCdf, draws.next());
+
+        long createdOffset = (long) ((double) index / Math.max(properties.getMembers(), 1) * SPAN_SECONDS);
+        LocalDateTime createdDate = EPOCH.plusSeconds(createdOffset);
+        LocalDateTime lastModifiedDate = createdDate.plusSeconds((long) (draws.next() * 30 * 24 * 60 * 60));
+        return new GeneratedMember(username, Math.max(age, 14), teamIndex, createdDate, lastModifiedDate);
+    }
+
+    public String teamName(int index) {
+        String name = TEAM_WORDS[index % TEAM_WORDS.length];
+        return index < TEAM_WORDS.length ? name : name + "-" + (index / TEAM_WORDS.length);
+    }
+
+    public String itemId(long index) {
+        return String.format("item-%010d", index);
+    }
+
+    /**
+     * @return 적재한 id 범위
+     */
+    public DatasetSummary generate() {
+        long start = System.currentTimeMillis();
+        long firstId = reserveIds(properties.getTeams() + properties.getMembers());
+        long firstMemberId = firstId + properties.getTeams();
+        long nextId = firstMemberId + properties.getMembers();
+        moveBlockSequences(nextId);
+
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getParallelism());
+        try {
+            // 회원이 팀을 참조하므로 팀을 먼저 커밋한다.
+            run(executor, TEAM_SQL, properties.getTeams(), (ps, i) -> {
+                LocalDateTime created = EPOCH.plusSeconds(i);
+                ps.setLong(1, firstId + i);
+                ps.setString(2, teamName((int) i));
+                ps.setTimestamp(3, Timestamp.valueOf(created));
+                ps.setTimestamp(4, Timestamp.valueOf(created));
+            });
+            run(executor, MEMBER_SQL, properties.getMembers(), (ps, i) -> {
+                GeneratedMember member = member(i);
+                ps.setLong(1, firstMemberId + i);
+                ps.setString(2, member.getUsername());
+                ps.setInt(3, member.getAge());
+                if (member.getTeamIndex() < 0) {
+                    ps.setNull(4, Types.BIGINT);
+                } else {
+                    ps.setLong(4, firstId + member.getTeamIndex());
+                }
+                ps.setTimestamp(5, Timestamp.valueOf(member.getCreatedDate()));
+                ps.setTimestamp(6, Timestamp.valueOf(member.getLastModifiedDate()));
+                ps.setString(7, "dataset");
+                ps.setString(8, "dataset");
+            });
+            run(executor, ITEM_SQL, properties.getItems(), (ps, i) -> {
+                ps.setString(1, itemId(i));
+                ps.setTimestamp(2, Timestamp.valueOf(EPOCH.plusSeconds(i)));
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+
+        DatasetSummary summary = new DatasetSummary(firstId, firstMemberId - 1, firstMemberId, nextId - 1,
+                properties.getItems(), System.currentTimeMillis() - start);
+        log.info("dataset generated: teams [{}, {}], members [{}, {}], {} items in {}ms",
+                summary.getFirstTeamId(), summary.getLastTeamId(), summary.getFirstMemberId(), summary.getLastMemberId(),
+                summary.getItems(), summary.getElapsedMillis());
+        return summary;
+    }
+
+    public boolean isMemberTableEmpty() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select count(*) from (select 1 from member limit 1)")) {
+            rs.next();
+            return rs.getLong(1) == 0;
+        } catch (SQLException e) {
+            throw new IllegalStateException("failed to inspect member table", e);
+        }
+    }
+
+    private void run(ExecutorService executor, String sql, long rows, RowBinder binder) {
+        List<Future<?>> chunks = new ArrayList<>();
+        for (long from = 0; from < rows; from += properties.getChunkSize()) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(rows, from + properties.getChunkSize());
+            chunks.add(executor.submit(() -> {
+                insertChunk(sql, chunkFrom, chunkTo, binder);
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("dataset generation interrupted", e);
+        } catch (ExecutionException e) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            throw new IllegalStateException("dataset generation failed: " + sql, e.getCause());
+        }
+    }
+
+    private void insertChunk(String sql, long from, long to, RowBinder binder) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                int batched = 0;
+                for (long i = from; i < to; i++) {
+                    binder.bind(ps, i);
+                    ps.addBatch();
+                    if (++batched == properties.getBatchSize()) {
+                        ps.executeBatch();
+                        batched = 0;
+                    }
+                }
+                if (batched > 0) {
+                    ps.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * [첫 id, 첫 id + count) 를 예약한다. 증가폭을 잠시 count 로 바꿔 한 번만 호출하므로
+     * 그 사이에 다른 커넥션이 받은 값도 예약한 범위와 겹치지 않는다.
+     */
+    private long reserveIds(long count) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            if (count > 1) {
+                statement.execute("alter sequence hibernate_sequence increment by " + count);
+            }
+            try (ResultSet rs = statement.executeQuery("select next value for hibernate_sequence")) {
+                rs.next();
+                return rs.getLong(1);
+            } finally {
+                if (count > 1) {
+                    statement.execute("alter sequence hibernate_sequence increment by 1");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("failed to reserve ids from hibernate_sequence", e);
+        }
+    }
+
+    /**
+     * id 블록 할당(datajpa.id-block)을 쓰면 엔티티별 블록 시퀀스를 예약한 범위 뒤로 옮긴다. 뒤로 되돌리지는 않는다.
+     */
+    private void moveBlockSequences(long next) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            List<String> behind = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery("select sequence_name, current_value from information_schema.sequences" +
+                    " where upper(sequence_name) in ('MEMBER_ID_BLOCK', 'TEAM_ID_BLOCK')")) {
+                while (rs.next()) {
+                    if (rs.getLong(2) < next) {
+                        behind.add(rs.getString(1));
+                    }
+                }
+            }
+            for (String sequence : behind) {
+                statement.execute("alter sequence " + sequence + " restart with " + next);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("failed to move id block sequences", e);
+        }
+    }
+
+    private static double[] zipfCdf(int n, double skew) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1 / Math.pow(rank + 1, skew);
+            cdf[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cdf[rank] /= sum;
+        }
+        return cdf;
+    }
+
+    private static int sample(double[] cdf, double u) {
+        int index = Arrays.binarySearch(cdf, u);
+        index = index >= 0 ? index : -index - 1;
+        return Math.min(index, cdf.length - 1);
+    }
+
+    @FunctionalInterface
+    private interface RowBinder {
+        void bind(PreparedStatement ps, long index) throws SQLException;
+    }
+
+    /**
+     * (seed, index) 로 정해지는 난수열 (splitmix64)
+     */
+    private static class Draws {
+        private long state;
+
+        Draws(long seed, long index) {
+            this.state = mix(seed ^ mix(index * GOLDEN));
+        }
+
+        double next() {
+            state += GOLDEN;
+            return (mix(state) >>> 11) * 0x1.0p-53;
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    @Getter
+    public static class GeneratedMember {
+        private final String username;
+        private final int age;
+        /**
+         * 팀이 없으면 -1
+         */
+        private final int teamIndex;
+        private final LocalDateTime createdDate;
+        private final LocalDateTime lastModifiedDate;
+
+        GeneratedMember(String username, int age, int teamIndex, LocalDateTime createdDate, LocalDateTime lastModifiedDate) {
+            this.username = username;
+            this.age = age;
+            this.teamIndex = teamIndex;
+            this.createdDate = createdDate;
+            this.lastModifiedDate = lastModifiedDate;
+        }
+    }
+
+    @Getter
+    public static class DatasetSummary {
+        private final long firstTeamId;
+        private final long lastTeamId;
+        private final long firstMemberId;
+        private final long lastMemberId;
+        private final long items;
+        private final long elapsedMillis;
+
+        DatasetSummary(long firstTeamId, long lastTeamId, long firstMemberId, long lastMemberId,
+                       long items, long elapsedMillis) {
+            this.firstTeamId = firstTeamId;
+            this.lastTeamId = lastTeamId;
+            this.firstMemberId = firstMemberId;
+            this.lastMemberId = lastMemberId;
+            this.items = items;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+}
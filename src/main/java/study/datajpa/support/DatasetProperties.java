@@ -0,0 +1,35 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datajpa.dataset")
+public class DatasetProperties {
+
+    private boolean enabled;
+    /**
+     * 같은 seed 와 크기면 항상 같은 데이터가 만들어진다.
+     */
+    private long seed = 42;
+    private int teams = 1_000;
+    private long members = 100_000;
+    private long items = 10_000;
+    /**
+     * 팀 크기 Zipf 지수. 클수록 소수의 팀에 회원이 몰린다.
+     */
+    private double teamSkew = 1.1;
+    /**
+     * 팀이 없는 회원 비율
+     */
+    private double noTeamRatio = 0.05;
+    private int batchSize = 1_000;
+    private int chunkSize = 50_000;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    /**
+     * false 면 member 테이블이 비어 있을 때만 만든다.
+     */
+    private boolean force;
+}
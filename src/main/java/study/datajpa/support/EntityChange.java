@@ -0,0 +1,35 @@
+package study.datajpa.support;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 아직 history 테이블에 쓰지 않은 엔티티 변경 하나
+ */
+class EntityChange {
+
+    static final char INSERT = 'I';
+    static final char UPDATE = 'U';
+    static final char DELETE = 'D';
+
+    final String entityType;
+    final long entityId;
+    final char changeType;
+    final LocalDateTime changedAt;
+    final String changedBy;
+    // 변경된 컬럼만
+    final Map<String, Object> diff;
+    // 파티션의 첫 행이면 diff 대신 쓴다. (delete 는 null)
+    final Map<String, Object> state;
+
+    EntityChange(String entityType, long entityId, char changeType, LocalDateTime changedAt, String changedBy,
+                 Map<String, Object> diff, Map<String, Object> state) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.changeType = changeType;
+        this.changedAt = changedAt;
+        this.changedBy = changedBy;
+        this.diff = diff;
+        this.state = state;
+    }
+}
@@ -0,0 +1,129 @@
+package study.datajpa.support;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.bytecode.enhance.spi.LazyPropertyInitializer;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Member / Team 의 insert, update, delete 를 모아 두었다가 커밋 직전에 history 테이블에 한 번에 쓴다.
+ * <p>
+ * 한 트랜잭션에서 여러 번 flush 해도 쓰기는 커밋 전에 한 번 배치로 실행되고, 롤백되면 버린다.
+ * 벌크 연산(@Modifying)은 엔티티 이벤트를 거치지 않으므로 기록되지 않는다.
+ */
+@RequiredArgsConstructor
+public class EntityHistoryListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityHistoryStore store;
+    private final Map<SessionImplementor, List<EntityChange>> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (!isTracked(event.getEntity())) {
+            return;
+        }
+        Map<String, Object> state = properties(event.getPersister(), event.getState(), null, event.getSession());
+        add(event.getSession(), change(event.getEntity(), event.getId(), EntityChange.INSERT, state, state));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!isTracked(event.getEntity())) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Map<String, Object> diff = properties(persister, event.getState(), event.getDirtyProperties(), event.getSession());
+        Map<String, Object> state = properties(persister, event.getState(), null, event.getSession());
+        add(event.getSession(), change(event.getEntity(), event.getId(), EntityChange.UPDATE, diff, state));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (!isTracked(event.getEntity())) {
+            return;
+        }
+        add(event.getSession(), change(event.getEntity(), event.getId(), EntityChange.DELETE, Map.of(), null));
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void add(EventSource session, EntityChange change) {
+        List<EntityChange> changes = pending.get(session);
+        if (changes == null) {
+            changes = new ArrayList<>();
+            pending.put(session, changes);
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing -> {
+                List<EntityChange> batch = pending.remove(completing);
+                if (batch != null) {
+                    store.write(completing, batch);
+                }
+            });
+            // 롤백되면 커밋 전 콜백이 호출되지 않으므로 여기서 버린다.
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) ->
+                    pending.remove(completed));
+        }
+        changes.add(change);
+    }
+
+    private EntityChange change(Object entity, Object id, char changeType, Map<String, Object> diff, Map<String, Object> state) {
+        String changedBy = entity instanceof Member ? ((Member) entity).getUpdatedBy() : null;
+        return new EntityChange(entity instanceof Member ? "Member" : "Team", ((Number) id).longValue(), changeType,
+                LocalDateTime.now(), changedBy, diff, state);
+    }
+
+    private boolean isTracked(Object entity) {
+        return entity instanceof Member || entity instanceof Team;
+    }
+
+    /**
+     * 컬렉션과 아직 로딩되지 않은 지연 로딩 속성은 제외하고, 연관 엔티티는 식별자만 담는다.
+     */
+    private Map<String, Object> properties(EntityPersister persister, Object[] state, int[] dirtyProperties, EventSource session) {
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        Map<String, Object> values = new LinkedHashMap<>();
+
+        if (dirtyProperties == null) {
+            for (int i = 0; i < names.length; i++) {
+                put(values, names[i], types[i], state[i], session);
+            }
+        } else {
+            for (int i : dirtyProperties) {
+                put(values, names[i], types[i], state[i], session);
+            }
+        }
+        return values;
+    }
+
+    private void put(Map<String, Object> values, String name, Type type, Object value, EventSource session) {
+        if (type.isCollectionType() || value == LazyPropertyInitializer.UNFETCHED_PROPERTY) {
+            return;
+        }
+        if (type.isEntityType() && value != null) {
+            value = session.getContextEntityIdentifier(value);
+        }
+        values.put(name, value);
+    }
+}
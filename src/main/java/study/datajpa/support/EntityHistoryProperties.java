@@ -0,0 +1,18 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datajpa.history")
+public class EntityHistoryProperties {
+
+    private boolean enabled;
+
+    /**
+     * 보관할 월 파티션 수 (0 이면 지우지 않는다)
+     */
+    private int retentionMonths;
+}
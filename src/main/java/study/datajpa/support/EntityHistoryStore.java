@@ -0,0 +1,320 @@
+package study.datajpa.support;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Member / Team 변경 이력 (append-only)
+ * <p>
+ * 1. 월별 파티션 테이블(entity_history_yyyyMM)에 쓴다. 보관 기간이 지나면 행을 지우지 않고 테이블을 통째로 drop 한다.
+ * 2. update 는 바뀐 컬럼만 JSON 으로 담고, 컬럼 이름을 사전으로 넣은 deflate 로 압축해서 저장한다.
+ * 3. 엔티티가 파티션에 처음 나올 때는 전체 상태를 담으므로, 이전 파티션이 지워져도 남은 파티션만으로 복원할 수 있다.
+ * <p>
+ * 파티션 테이블은 ddl-auto 가 관리하지 않으며, 만들 때는 트랜잭션과 상관없는 커넥션을 쓴다. (H2 는 DDL 이 트랜잭션을 커밋한다)
+ */
+@Slf4j
+public class EntityHistoryStore {
+
+    private static final String PREFIX = "entity_history_";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern PARTITION = Pattern.compile("(?i)entity_history_(\\d{6})");
+
+    private static final byte CODEC_VERSION = 1;
+    // 코덱 버전 1 의 사전. 바꾸려면 버전을 올리고 이전 사전도 남겨야 한다.
+    private static final byte[] DICTIONARY = ("{\"age\":,\"createdBy\":\"\",\"createdDate\":\"20\",\"lastModifiedDate\":\"20\"," +
+            "\"name\":\"\",\"profile\":\"\",\"team\":,\"updatedBy\":\"\",\"username\":\"\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionMonths;
+    private final Set<String> partitions = ConcurrentHashMap.newKeySet();
+
+    public EntityHistoryStore(DataSource dataSource, ObjectMapper objectMapper, EntityManager em,
+                              PlatformTransactionManager transactionManager, EntityHistoryProperties properties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.retentionMonths = properties.getRetentionMonths();
+    }
+
+    /**
+     * 이번 달과 다음 달 파티션을 미리 만들고, 보관 기간이 지난 파티션을 지운다.
+     */
+    @Scheduled(cron = "${datajpa.history.maintenance-cron:0 0 3 * * *}")
+    public void maintain() {
+        YearMonth now = YearMonth.now();
+        createPartition(now);
+        createPartition(now.plusMonths(1));
+        if (retentionMonths > 0) {
+            dropPartitionsBefore(now.minusMonths(retentionMonths - 1));
+        }
+    }
+
+    /**
+     * @return 지운 파티션 테이블 이름
+     */
+    public List<String> dropPartitionsBefore(YearMonth month) {
+        List<String> dropped = new ArrayList<>();
+        listPartitions().forEach((partitionMonth, table) -> {
+            if (partitionMonth.isBefore(month)) {
+                jdbcTemplate.execute("drop table if exists " + table);
+                partitions.remove(table.toLowerCase());
+                dropped.add(table);
+            }
+        });
+        if (!dropped.isEmpty()) {
+            log.info("dropped entity history partitions {}", dropped);
+        }
+        return dropped;
+    }
+
+    /**
+     * 커밋 직전, 변경이 일어난 세션의 커넥션(같은 트랜잭션)으로 배치 insert 한다.
+     */
+    void write(SessionImplementor session, List<EntityChange> changes) {
+        Map<String, List<EntityChange>> byPartition = changes.stream()
+                .collect(Collectors.groupingBy(change -> createPartition(YearMonth.from(change.changedAt)),
+                        LinkedHashMap::new, Collectors.toList()));
+
+        session.doWork(connection -> {
+            for (Map.Entry<String, List<EntityChange>> entry : byPartition.entrySet()) {
+                String table = entry.getKey();
+                Set<String> known = existing(connection, table, entry.getValue());
+                try (PreparedStatement ps = connection.prepareStatement("insert into " + table +
+                        " (entity_type, entity_id, change_type, changed_at, changed_by, full_state, diff)" +
+                        " values (?, ?, ?, ?, ?, ?, ?)")) {
+                    for (EntityChange change : entry.getValue()) {
+                        // 이 파티션에 처음 나오는 엔티티는 전체 상태를 쓴다.
+                        boolean full = change.state != null && known.add(change.entityType + ":" + change.entityId);
+                        ps.setString(1, change.entityType);
+                        ps.setLong(2, change.entityId);
+                        ps.setString(3, String.valueOf(change.changeType));
+                        ps.setTimestamp(4, Timestamp.valueOf(change.changedAt));
+                        ps.setString(5, change.changedBy);
+                        ps.setBoolean(6, full);
+                        ps.setBytes(7, encode(full ? change.state : change.diff));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            }
+        });
+    }
+
+    /**
+     * 변경 이력으로 at 시점의 엔티티를 복원한다. 그 시점에 없었거나 삭제된 상태면 empty.
+     * <p>
+     * 반환된 엔티티는 영속성 컨택스트에 속하지 않는다. 연관 엔티티는 식별자만 있는 프록시다.
+     * 남아 있는 가장 오래된 파티션 이전의 상태는 알 수 없다.
+     */
+    public <T> Optional<T> asOf(Class<T> type, Long id, LocalDateTime at) {
+        Map<String, Object> state = null;
+        for (Map.Entry<YearMonth, String> partition : listPartitions().entrySet()) {
+            if (partition.getKey().isAfter(YearMonth.from(at))) {
+                break;
+            }
+            List<Object[]> rows = jdbcTemplate.query("select change_type, full_state, diff from " + partition.getValue() +
+                            " where entity_type = ? and entity_id = ? and changed_at <= ? order by history_id",
+                    (rs, rowNum) -> new Object[]{rs.getString(1).charAt(0), rs.getBoolean(2), rs.getBytes(3)},
+                    type.getSimpleName(), id, Timestamp.valueOf(at));
+            for (Object[] row : rows) {
+                char changeType = (char) row[0];
+                Map<String, Object> values = decode((byte[]) row[2]);
+                if (changeType == EntityChange.DELETE) {
+                    state = null;
+                } else if (changeType == EntityChange.INSERT || state == null) {
+                    state = new HashMap<>(values);
+                } else {
+                    state.putAll(values);
+                }
+            }
+        }
+        if (state == null) {
+            return Optional.empty();
+        }
+        Map<String, Object> values = state;
+        return Optional.of(transactionTemplate.execute(status -> instantiate(type, id, values)));
+    }
+
+    private <T> T instantiate(Class<T> type, Long id, Map<String, Object> values) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(type);
+        Object entity = persister.instantiate(id, session);
+
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        for (int i = 0; i < names.length; i++) {
+            if (!values.containsKey(names[i]) || types[i].isCollectionType()) {
+                continue;
+            }
+            Object value = values.get(names[i]);
+            if (value != null && types[i].isEntityType()) {
+                Class<?> associated = types[i].getReturnedClass();
+                Type idType = ((EntityType) types[i]).getIdentifierOrUniqueKeyType(session.getFactory());
+                value = em.getReference(associated, objectMapper.convertValue(value, idType.getReturnedClass()));
+            } else if (value != null) {
+                value = objectMapper.convertValue(value, types[i].getReturnedClass());
+            }
+            persister.setPropertyValue(entity, i, value);
+        }
+        return type.cast(entity);
+    }
+
+    /**
+     * @return 이미 이 파티션에 행이 있는 엔티티 (type:id)
+     */
+    private Set<String> existing(Connection connection, String table, List<EntityChange> changes) throws SQLException {
+        Map<String, Set<Long>> idsByType = new HashMap<>();
+        for (EntityChange change : changes) {
+            idsByType.computeIfAbsent(change.entityType, key -> new HashSet<>()).add(change.entityId);
+        }
+        Set<String> known = new HashSet<>();
+        for (Map.Entry<String, Set<Long>> entry : idsByType.entrySet()) {
+            String placeholders = String.join(", ", Collections.nCopies(entry.getValue().size(), "?"));
+            try (PreparedStatement ps = connection.prepareStatement("select distinct entity_id from " + table +
+                    " where entity_type = ? and entity_id in (" + placeholders + ")")) {
+                ps.setString(1, entry.getKey());
+                int index = 2;
+                for (Long id : entry.getValue()) {
+                    ps.setLong(index++, id);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        known.add(entry.getKey() + ":" + rs.getLong(1));
+                    }
+                }
+            }
+        }
+        return known;
+    }
+
+    private String createPartition(YearMonth month) {
+        String table = PREFIX + month.format(SUFFIX);
+        if (partitions.contains(table)) {
+            return table;
+        }
+        jdbcTemplate.execute("create table if not exists " + table + " (" +
+                "history_id bigint auto_increment primary key, " +
+                "entity_type varchar(20) not null, " +
+                "entity_id bigint not null, " +
+                "change_type char(1) not null, " +
+                "changed_at timestamp not null, " +
+                "changed_by varchar(255), " +
+                "full_state boolean not null, " +
+                "diff varbinary)");
+        jdbcTemplate.execute("create index if not exists idx_" + table + " on " + table + " (entity_type, entity_id, history_id)");
+        partitions.add(table);
+        return table;
+    }
+
+    /**
+     * @return 월 순서로 정렬된 파티션 테이블
+     */
+    private TreeMap<YearMonth, String> listPartitions() {
+        TreeMap<YearMonth, String> result = new TreeMap<>();
+        List<String> tables = jdbcTemplate.queryForList("select table_name from information_schema.tables" +
+                " where table_schema = schema() and upper(table_name) like 'ENTITY_HISTORY_%'", String.class);
+        for (String table : tables) {
+            Matcher matcher = PARTITION.matcher(table);
+            if (matcher.matches()) {
+                result.put(YearMonth.parse(matcher.group(1), SUFFIX), table);
+            }
+        }
+        return result;
+    }
+
+    private byte[] encode(Map<String, Object> values) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("history values are not serializable: " + values, e);
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(json);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 16);
+            out.write(CODEC_VERSION);
+            byte[] buffer = new byte[512];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private Map<String, Object> decode(byte[] bytes) {
+        if (bytes[0] != CODEC_VERSION) {
+            throw new IllegalStateException("unknown entity history codec version: " + bytes[0]);
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(DICTIONARY);
+            inflater.setInput(bytes, 1, bytes.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+            byte[] buffer = new byte[512];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && inflater.needsInput()) {
+                    throw new IllegalStateException("truncated entity history diff");
+                }
+                out.write(buffer, 0, n);
+            }
+            return objectMapper.readValue(out.toByteArray(), new TypeReference<Map<String, Object>>() {
+            });
+        } catch (DataFormatException | IOException e) {
+            throw new IllegalStateException("corrupted entity history diff", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 호출하는 쪽이 결과에서 실제로 접근할 연관관계 경로를 선언한다.
+ * <p>
+ * callSite 는 통계를 모으는 단위다. 엔드포인트별로 모으려면 "GET /members/teams" 처럼 엔드포인트를 넣는다.
+ * ex) FetchPlan.of("GET /members/teams", "team")
+ */
+@Getter
+public class FetchPlan {
+
+    private final String callSite;
+    private final Set<String> paths;
+
+    private FetchPlan(String callSite, Set<String> paths) {
+        this.callSite = callSite;
+        this.paths = Collections.unmodifiableSet(paths);
+    }
+
+    public static FetchPlan of(String callSite, String... paths) {
+        return new FetchPlan(callSite, new LinkedHashSet<>(Arrays.asList(paths)));
+    }
+}
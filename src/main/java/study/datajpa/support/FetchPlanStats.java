@@ -0,0 +1,43 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * callSite / 연관관계 경로별 fetch 전략 통계
+ */
+@Getter
+@ToString
+public class FetchPlanStats {
+    private String callSite;
+    private String path;
+    private long joinFetched;
+    private long batchFetched;
+    private long notFetched;
+    private long sampled;
+    private long accessed;
+    /**
+     * 가져온(BATCH) 호출 중 접근 여부를 확인한 수와 그중 접근한 수
+     */
+    private long fetchedSampled;
+    private long fetchedAccessed;
+    /**
+     * 가져온 호출을 충분히 관찰했는데 한 번도 접근하지 않았다.
+     */
+    private boolean fetchedButUnused;
+
+    public FetchPlanStats(String callSite, String path, long joinFetched, long batchFetched, long notFetched,
+                          long sampled, long accessed, long fetchedSampled, long fetchedAccessed,
+                          boolean fetchedButUnused) {
+        this.callSite = callSite;
+        this.path = path;
+        this.joinFetched = joinFetched;
+        this.batchFetched = batchFetched;
+        this.notFetched = notFetched;
+        this.sampled = sampled;
+        this.accessed = accessed;
+        this.fetchedSampled = fetchedSampled;
+        this.fetchedAccessed = fetchedAccessed;
+        this.fetchedButUnused = fetchedButUnused;
+    }
+}
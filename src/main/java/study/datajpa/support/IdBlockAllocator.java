@@ -0,0 +1,58 @@
+package study.datajpa.support;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * DB 에서 받아 온 id 블록 [start, start + blockSize) 을 락 없이 나눠 준다.
+ * <p>
+ * 블록 안에서는 AtomicLong 증가 한 번으로 id 를 받는다.
+ * 블록이 바닥나면 먼저 본 스레드들이 새 블록을 받아 CAS 로 교체하고, 교체에 진 블록은 버리지 않고 다음 교체에 쓴다.
+ */
+public class IdBlockAllocator {
+
+    private final int blockSize;
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+    private final Queue<Block> spare = new ConcurrentLinkedQueue<>();
+
+    public IdBlockAllocator(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @param blockSource 새 블록의 첫 id 를 DB 에서 받아 온다.
+     */
+    public long next(LongSupplier blockSource) {
+        while (true) {
+            Block block = current.get();
+            long id = block.next.getAndIncrement();
+            if (id < block.end) {
+                return id;
+            }
+            Block fresh = spare.poll();
+            if (fresh == null) {
+                long start = blockSource.getAsLong();
+                fresh = new Block(start, start + blockSize);
+            }
+            if (!current.compareAndSet(block, fresh)) {
+                spare.offer(fresh);
+            }
+        }
+    }
+
+    private static class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
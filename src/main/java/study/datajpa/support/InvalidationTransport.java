@@ -0,0 +1,21 @@
+package study.datajpa.support;
+
+import java.util.function.Consumer;
+
+/**
+ * 노드 사이에 무효화 메시지를 전달한다.
+ * <p>
+ * 전달을 보장하지 않아도 된다. 유실은 CacheInvalidationBus 가 순번으로 알아챈다.
+ */
+public interface InvalidationTransport {
+
+    void send(byte[] message);
+
+    /**
+     * 다른 노드가 보낸 메시지를 받는다. (자기가 보낸 메시지가 함께 와도 된다)
+     */
+    void subscribe(Consumer<byte[]> receiver);
+
+    default void close() {
+    }
+}
@@ -0,0 +1,48 @@
+package study.datajpa.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 한 JVM 안의 여러 노드(CacheInvalidationBus)를 잇는 전송 (테스트용)
+ * <p>
+ * ex) Hub hub = new Hub(); new CacheInvalidationBus(hub.connect(), ...)
+ * 보내는 스레드에서 바로 전달한다. hub.setDropping(true) 로 메시지 유실을 흉내 낼 수 있다.
+ */
+public class LocalInvalidationTransport implements InvalidationTransport {
+
+    private final Hub hub;
+
+    private LocalInvalidationTransport(Hub hub) {
+        this.hub = hub;
+    }
+
+    @Override
+    public void send(byte[] message) {
+        if (hub.dropping) {
+            return;
+        }
+        for (Consumer<byte[]> receiver : hub.receivers) {
+            receiver.accept(message.clone());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<byte[]> receiver) {
+        hub.receivers.add(receiver);
+    }
+
+    public static class Hub {
+        private final List<Consumer<byte[]>> receivers = new CopyOnWriteArrayList<>();
+        private volatile boolean dropping;
+
+        public LocalInvalidationTransport connect() {
+            return new LocalInvalidationTransport(this);
+        }
+
+        public void setDropping(boolean dropping) {
+            this.dropping = dropping;
+        }
+    }
+}
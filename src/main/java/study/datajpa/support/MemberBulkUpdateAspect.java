@@ -0,0 +1,43 @@
+package study.datajpa.support;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+
+/**
+ * MemberRepository 의 @Modifying 메서드가 끝나면 MemberBulkUpdateListener 들에게 알린다.
+ * (bulkAgePlus 는 MemberJpaRepository 가 직접 알린다)
+ * <p>
+ * @Query 만으로는 대상 회원을 알 수 없으므로 id 없이 알린다.
+ * 대상 id 가 필요한 벌크 연산은 MemberJpaRepository 처럼 직접 구현한다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MemberBulkUpdateAspect {
+
+    private final ObjectProvider<MemberBulkUpdateListener> listeners;
+    private final EntityManager em;
+
+    @Around("execution(* study.datajpa.repository.MemberRepository.*(..))")
+    public Object aroundBulkUpdate(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        if (!signature.getMethod().isAnnotationPresent(Modifying.class)) {
+            return joinPoint.proceed();
+        }
+        Object result = joinPoint.proceed();
+
+        Session session = em.unwrap(Session.class);
+        listeners.orderedStream()
+                .forEach(listener -> listener.onBulkUpdate(session, signature.getName(), joinPoint.getArgs(), result, null));
+        return result;
+    }
+}
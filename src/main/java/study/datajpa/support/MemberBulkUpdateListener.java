@@ -0,0 +1,28 @@
+package study.datajpa.support;
+
+import org.hibernate.Session;
+
+import java.util.Set;
+
+/**
+ * Member 벌크 연산(bulkAgePlus 등) 이후에 호출된다.
+ * <p>
+ * 벌크 연산은 영속성 컨택스트와 엔티티 이벤트를 거치지 않으므로,
+ * 엔티티 이벤트로 유지되는 부가 데이터(outbox, 통계, 검색 색인 등)는 이 인터페이스로 따라잡는다.
+ * 벌크 연산과 같은 트랜잭션 안에서 호출된다.
+ * ids 는 연산 대상 회원 id 이다. 대상을 알 수 없거나 MAX_TARGET_IDS 개를 넘으면 null 이다.
+ */
+public interface MemberBulkUpdateListener {
+
+    // 벌크 연산 전에 대상 id 를 미리 조회하는 최대 개수, 넘으면 id 없이 알린다.
+    int MAX_TARGET_IDS = 10_000;
+
+    void onBulkUpdate(Session session, String method, Object[] args, Object rows, Set<Long> ids);
+
+    /**
+     * true 이면 대상 id 를 미리 조회해서 넘긴다. 아무 리스너도 원하지 않으면 조회하지 않는다.
+     */
+    default boolean requiresTargetIds() {
+        return false;
+    }
+}
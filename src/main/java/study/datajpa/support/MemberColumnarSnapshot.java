@@ -0,0 +1,546 @@
+package study.datajpa.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberSearchDto;
+import study.datajpa.dto.TeamAgeSummaryDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 분석용 Member / Team 컬럼형 스냅샷
+ * <p>
+ * 리포팅 쿼리(팀별 나이 집계, username 패턴 필터, 나이 상위 N명)가 OLTP 와 같은 DB 를 두고 경쟁하지 않도록
+ * 프로세스 안에 복사본을 둔다.
+ * 1. id, team_id, age 는 힙 밖의 원시 타입 컬럼(OffHeapColumn)에, username 은 사전 인코딩해서 코드만 컬럼에 둔다.
+ * 2. 적재는 엔티티를 만들지 않는 프로젝션 쿼리를 스트리밍으로 읽는다.
+ * 3. 이후 갱신은 lastModifiedDate 이후에 바뀐 행만 다시 읽어 덮어쓴다.
+ *    lastModifiedDate 는 커밋이 아니라 flush 시각이므로 watermark - changeOverlap 부터 겹쳐 읽는다.
+ *    (changeOverlap 은 가장 긴 트랜잭션 + replica 지연보다 길게 잡는다)
+ * 4. 조회는 조건마다 컬럼을 한 번씩 훑어 비트맵을 좁힌 뒤 집계한다. username 조건은 행이 아니라 사전에만 평가한다.
+ * <p>
+ * lastModifiedDate 로는 삭제와 벌크 연산을 알 수 없으므로 전체 재적재 주기에 반영된다.
+ * (벌크 연산이 일어나면 다음 갱신을 전체 재적재로 바꾼다)
+ * 다른 노드가 무효화한 id 는 다음 갱신에서 id 로 다시 읽고, 그중 삭제된 행이 있으면 전체를 다시 읽는다.
+ * Team 은 행 수가 적어 이름만 맵으로 들고 있는다.
+ */
+@Slf4j
+public class MemberColumnarSnapshot implements MemberBulkUpdateListener, CacheInvalidationListener, DisposableBean {
+
+    private static final long NO_TEAM = -1L;
+    private static final int FETCH_SIZE = 1000;
+    private static final String SCAN = "select m.id, t.id, m.age, m.username, m.lastModifiedDate" +
+            " from Member m left join m.team t";
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration changeOverlap;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Columns columns = new Columns(0);
+    private Map<Long, String> teamNames = new HashMap<>();
+    private LocalDateTime watermark;
+    private volatile boolean fullReloadRequired = true;
+    private final Set<Long> invalidatedIds = ConcurrentHashMap.newKeySet();
+
+    public MemberColumnarSnapshot(EntityManager em, PlatformTransactionManager transactionManager, Duration changeOverlap) {
+        this.em = em;
+        this.changeOverlap = changeOverlap;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Scheduled(fixedDelayString = "${datajpa.snapshot.refresh-interval-millis:5000}")
+    public void refreshScheduled() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${datajpa.snapshot.full-reload-interval-millis:600000}",
+            initialDelayString = "${datajpa.snapshot.full-reload-interval-millis:600000}")
+    public void reloadScheduled() {
+        fullReloadRequired = true;
+        refresh();
+    }
+
+    /**
+     * 바뀐 행만 다시 읽는다. 처음이거나 전체 재적재가 필요하면 전체를 다시 읽는다.
+     *
+     * @return 읽은 행 수
+     */
+    public synchronized int refresh() {
+        Integer rows = transactionTemplate.execute(status ->
+                fullReloadRequired || watermark == null ? loadAll() : loadChanged());
+        return rows == null ? 0 : rows;
+    }
+
+    private int loadAll() {
+        fullReloadRequired = false;
+        invalidatedIds.clear();
+        Columns loaded = new Columns(Math.max(columns.rows, 1024));
+        LocalDateTime[] max = {null};
+        try (Stream<Object[]> stream = scan(em.createQuery(SCAN, Object[].class))) {
+            stream.forEach(row -> {
+                loaded.upsert(row);
+                max[0] = later(max[0], (LocalDateTime) row[4]);
+            });
+        }
+        Map<Long, String> loadedTeamNames = loadTeamNames();
+
+        lock.writeLock().lock();
+        try {
+            // 쓰기 락을 잡았으므로 이전 컬럼을 읽는 조회는 없다.
+            columns.release();
+            columns = loaded;
+            teamNames = loadedTeamNames;
+            watermark = max[0]; // 비어 있으면 null 이라 다음에도 전체를 읽는다.
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("member snapshot loaded: {} rows, {} usernames, {} bytes off-heap",
+                loaded.rows, loaded.dictionary.size(), loaded.offHeapBytes());
+        return loaded.rows;
+    }
+
+    private int loadChanged() {
+        // 앞선 갱신 뒤에 커밋됐지만 flush 시각이 watermark 보다 이른 행을 놓치지 않도록 겹쳐 읽는다.
+        // 덮어쓰기라 중복으로 읽어도 괜찮다.
+        TypedQuery<Object[]> query = em.createQuery(SCAN + " where m.lastModifiedDate >= :since", Object[].class)
+                .setParameter("since", watermark.minus(changeOverlap));
+        List<Object[]> changed = new ArrayList<>();
+        try (Stream<Object[]> stream = scan(query)) {
+            stream.forEach(changed::add);
+        }
+        if (!loadInvalidated(changed)) {
+            return loadAll();
+        }
+        Map<Long, String> loadedTeamNames = loadTeamNames();
+
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : changed) {
+                columns.upsert(row);
+                watermark = later(watermark, (LocalDateTime) row[4]);
+            }
+            teamNames = loadedTeamNames;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return changed.size();
+    }
+
+    /**
+     * 다른 노드의 벌크 연산은 lastModifiedDate 를 바꾸지 않으므로 무효화된 id 를 직접 다시 읽는다.
+     *
+     * @return 삭제된 행이 있으면 false (컬럼에서 행을 뺄 수 없으므로 전체를 다시 읽는다)
+     */
+    private boolean loadInvalidated(List<Object[]> changed) {
+        List<Long> ids = new ArrayList<>(invalidatedIds);
+        invalidatedIds.removeAll(ids);
+        Set<Long> found = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += FETCH_SIZE) {
+            List<Object[]> rows = em.createQuery(SCAN + " where m.id in :ids", Object[].class)
+                    .setParameter("ids", ids.subList(from, Math.min(from + FETCH_SIZE, ids.size())))
+                    .getResultList();
+            for (Object[] row : rows) {
+                changed.add(row);
+                found.add((Long) row[0]);
+            }
+        }
+        return found.size() == ids.size();
+    }
+
+    private Stream<Object[]> scan(TypedQuery<Object[]> query) {
+        return query.setHint(QueryHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .getResultStream();
+    }
+
+    private Map<Long, String> loadTeamNames() {
+        Map<Long, String> names = new HashMap<>();
+        for (Object[] row : em.createQuery("select t.id, t.name from Team t", Object[].class).getResultList()) {
+            names.put((Long) row[0], (String) row[1]);
+        }
+        return names;
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+
+    /**
+     * 벌크 연산은 lastModifiedDate 를 바꾸지 않으므로 다음 갱신을 전체 재적재로 바꾼다.
+     * 커밋 전에 재적재하면 벌크 연산 전의 값을 읽으므로 커밋된 뒤에 표시한다.
+     */
+    @Override
+    public void onBulkUpdate(Session session, String method, Object[] args, Object rows, Set<Long> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            fullReloadRequired = true;
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                fullReloadRequired = true;
+            }
+        });
+    }
+
+    /**
+     * 다른 노드의 벌크 연산으로 바뀌거나 삭제된 Member 는 lastModifiedDate 로 알 수 없으므로 다음 갱신에서 id 로 다시 읽는다.
+     * Team 이름은 갱신마다 다시 읽는다.
+     */
+    @Override
+    public void invalidate(String region, Set<Long> ids) {
+        if (region.equals("Member")) {
+            invalidatedIds.addAll(ids);
+        }
+    }
+
+    /**
+     * 다른 노드의 벌크 연산이나 유실된 무효화는 전체 재적재로 따라잡는다.
+     */
+    @Override
+    public void invalidateRegion(String region) {
+        fullReloadRequired = true;
+    }
+
+    @Override
+    public void invalidateAll() {
+        fullReloadRequired = true;
+    }
+
+    @Override
+    public void destroy() {
+        lock.writeLock().lock();
+        try {
+            columns.release();
+            columns = new Columns(0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long count(MemberSnapshotFilter filter) {
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            for (long word : select(filter)) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 팀별 회원 수와 나이 통계. 팀이 없는 회원은 teamId 가 null 인 그룹으로 묶인다.
+     */
+    public List<TeamAgeSummaryDto> groupByTeam(MemberSnapshotFilter filter) {
+        lock.readLock().lock();
+        try {
+            long[] selected = select(filter);
+            // teamId -> {count, ageSum, minAge, maxAge}
+            Map<Long, long[]> groups = new HashMap<>();
+            for (int w = 0; w < selected.length; w++) {
+                long word = selected[w];
+                while (word != 0) {
+                    int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    int age = columns.ages.getInt(row);
+                    long[] group = groups.computeIfAbsent(columns.teamIds.getLong(row),
+                            k -> new long[]{0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE});
+                    group[0]++;
+                    group[1] += age;
+                    group[2] = Math.min(group[2], age);
+                    group[3] = Math.max(group[3], age);
+                }
+            }
+
+            List<TeamAgeSummaryDto> result = new ArrayList<>();
+            groups.forEach((teamId, g) -> {
+                Long id = teamId == NO_TEAM ? null : teamId;
+                result.add(new TeamAgeSummaryDto(id, id == null ? null : teamNames.get(id), g[0], g[1], (int) g[2], (int) g[3]));
+            });
+            result.sort(Comparator.comparing(TeamAgeSummaryDto::getMemberCount).reversed()
+                    .thenComparing(TeamAgeSummaryDto::getTeamId, Comparator.nullsLast(Comparator.naturalOrder())));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 나이가 많은 순으로 n명. 나이가 같으면 id 가 작은 순서
+     */
+    public List<MemberSearchDto> topByAge(MemberSnapshotFilter filter, int n) {
+        if (n <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            Comparator<Integer> order = Comparator.<Integer>comparingInt(row -> columns.ages.getInt(row))
+                    .reversed()
+                    .thenComparingLong(row -> columns.ids.getLong(row));
+            // 힙의 맨 위에는 지금까지 뽑은 것 중 가장 순위가 낮은 행이 온다.
+            PriorityQueue<Integer> top = new PriorityQueue<>(n + 1, order.reversed());
+            long[] selected = select(filter);
+            for (int w = 0; w < selected.length; w++) {
+                long word = selected[w];
+                while (word != 0) {
+                    int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    top.offer(row);
+                    if (top.size() > n) {
+                        top.poll();
+                    }
+                }
+            }
+
+            List<Integer> rows = new ArrayList<>(top);
+            rows.sort(order);
+            List<MemberSearchDto> result = new ArrayList<>(rows.size());
+            for (int row : rows) {
+                result.add(new MemberSearchDto(columns.ids.getLong(row),
+                        columns.dictionary.decode(columns.usernameCodes.getInt(row)),
+                        columns.ages.getInt(row)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 조건을 하나씩 컬럼 전체에 적용해 통과한 행의 비트맵을 만든다. 읽기 락 안에서 호출한다.
+     */
+    private long[] select(MemberSnapshotFilter filter) {
+        Columns c = columns;
+        int rows = c.rows;
+        long[] bits = new long[(rows + 63) >>> 6];
+
+        int minAge = filter.getMinAge();
+        int maxAge = filter.getMaxAge();
+        for (int row = 0; row < rows; row++) {
+            int age = c.ages.getInt(row);
+            if (age >= minAge && age <= maxAge) {
+                bits[row >>> 6] |= 1L << row;
+            }
+        }
+
+        if (filter.getTeamId() != null) {
+            long teamId = filter.getTeamId();
+            for (int row = 0; row < rows; row++) {
+                if (c.teamIds.getLong(row) != teamId) {
+                    bits[row >>> 6] &= ~(1L << row);
+                }
+            }
+        }
+
+        if (filter.getUsernamePattern() != null) {
+            boolean[] matches = c.dictionary.matches(filter.getUsernamePattern());
+            for (int row = 0; row < rows; row++) {
+                int code = c.usernameCodes.getInt(row);
+                if (code < 0 || !matches[code]) {
+                    bits[row >>> 6] &= ~(1L << row);
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * 컬럼 묶음. 행 번호는 처음 적재된 순서이고 같은 id 는 같은 행을 덮어쓴다.
+     */
+    private static class Columns {
+        private final OffHeapColumn ids;
+        private final OffHeapColumn teamIds;
+        private final OffHeapColumn ages;
+        private final OffHeapColumn usernameCodes;
+        private final UsernameDictionary dictionary = new UsernameDictionary();
+        private final RowIndex rowIndex;
+        private int rows;
+
+        Columns(int capacity) {
+            this.ids = OffHeapColumn.longs(capacity);
+            this.teamIds = OffHeapColumn.longs(capacity);
+            this.ages = OffHeapColumn.ints(capacity);
+            this.usernameCodes = OffHeapColumn.ints(capacity);
+            this.rowIndex = new RowIndex(capacity);
+        }
+
+        /**
+         * @param row {member_id, team_id, age, username, lastModifiedDate}
+         */
+        void upsert(Object[] row) {
+            long id = (Long) row[0];
+            int index = rowIndex.get(id);
+            if (index < 0) {
+                index = rows++;
+                rowIndex.put(id, index);
+                ids.putLong(index, id);
+            }
+            teamIds.putLong(index, row[1] == null ? NO_TEAM : (Long) row[1]);
+            ages.putInt(index, (Integer) row[2]);
+            usernameCodes.putInt(index, dictionary.encode((String) row[3]));
+        }
+
+        long offHeapBytes() {
+            return ids.offHeapBytes() + teamIds.offHeapBytes() + ages.offHeapBytes() + usernameCodes.offHeapBytes();
+        }
+
+        void release() {
+            ids.release();
+            teamIds.release();
+            ages.release();
+            usernameCodes.release();
+        }
+    }
+
+    /**
+     * username 사전. null 은 -1 로 인코딩한다.
+     */
+    private static class UsernameDictionary {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        int encode(String username) {
+            if (username == null) {
+                return -1;
+            }
+            return codes.computeIfAbsent(username, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+
+        String decode(int code) {
+            return code < 0 ? null : values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        boolean[] matches(String likePattern) {
+            Pattern pattern = Pattern.compile(toRegex(likePattern), Pattern.DOTALL);
+            boolean[] matches = new boolean[values.size()];
+            for (int code = 0; code < matches.length; code++) {
+                matches[code] = pattern.matcher(values.get(code)).matches();
+            }
+            return matches;
+        }
+
+        private static String toRegex(String likePattern) {
+            StringBuilder regex = new StringBuilder();
+            StringBuilder literal = new StringBuilder();
+            for (char ch : likePattern.toCharArray()) {
+                if (ch == '%' || ch == '_') {
+                    if (literal.length() > 0) {
+                        regex.append(Pattern.quote(literal.toString()));
+                        literal.setLength(0);
+                    }
+                    regex.append(ch == '%' ? ".*" : ".");
+                } else {
+                    literal.append(ch);
+                }
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+            }
+            return regex.toString();
+        }
+    }
+
+    /**
+     * member_id -> 행 번호. 박싱 없는 개방 주소법 해시 (id 0 은 빈 칸 표시로 쓴다)
+     */
+    private static class RowIndex {
+        private long[] keys;
+        private int[] values;
+        private int size;
+
+        RowIndex(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 16) * 2 - 1) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                size++;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
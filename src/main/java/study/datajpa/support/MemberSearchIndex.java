@@ -0,0 +1,280 @@
+package study.datajpa.support;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import study.datajpa.dto.MemberSearchDto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Member.username 인메모리 검색 색인
+ * <p>
+ * like '%x%' 처럼 앞에 와일드카드가 붙으면 B-tree 인덱스를 타지 못하므로,
+ * username 을 소문자 3-gram 으로 쪼갠 역색인(trigram -> member_id)을 프로세스 안에 유지한다.
+ * 1. PREFIX: 정렬된 username 맵의 범위 조회
+ * 2. INFIX: 검색어 3-gram 들의 교집합 후 contains 확인
+ * 3. FUZZY: 검색어 3-gram 을 충분히 공유하는 후보만 편집 거리를 계산
+ * 쓰기는 동기화하고 읽기는 락 없이 수행한다. 다시 만들 때는 새 색인을 채운 뒤 참조만 바꾼다.
+ */
+public class MemberSearchIndex {
+
+    public enum Mode {
+        PREFIX, INFIX, FUZZY
+    }
+
+    private static final int GRAM = 3;
+    private static final Comparator<MemberSearchDto> ORDER = Comparator
+            .comparing(MemberSearchDto::getUsername)
+            .thenComparing(MemberSearchDto::getId);
+
+    private volatile State state = new State();
+    // rebuild 중에 들어온 변경 (rebuild 중이 아니면 null)
+    private List<Consumer<State>> replay;
+    private boolean replayIncomplete;
+
+    public synchronized void put(Long id, String username, int age) {
+        state.put(id, username, age);
+        record(s -> s.put(id, username, age));
+    }
+
+    public synchronized void remove(Long id) {
+        state.remove(id);
+        record(s -> s.remove(id));
+    }
+
+    /**
+     * bulkAgePlus(age) 를 색인에도 똑같이 적용한다.
+     */
+    public synchronized void agePlus(int age) {
+        state.agePlus(age);
+        // 새 색인이 이미 읽은 행에 다시 적용하면 두 번 더해지므로 다시 적용하지 않고 다시 만들게 한다.
+        if (replay != null) {
+            replayIncomplete = true;
+        }
+    }
+
+    public synchronized void clear() {
+        state = new State();
+    }
+
+    /**
+     * loader 로 새 색인을 채운 뒤 한 번에 바꾼다. 채우는 동안 검색은 기존 색인으로 동작한다.
+     * 채우는 동안 들어온 put / remove 는 새 색인에도 다시 적용한다.
+     * 동시에 여러 번 호출하지 않는다. (MemberSearchIndexSynchronizer 가 한 스레드에서 호출한다)
+     *
+     * @return 채우는 동안 agePlus 가 있어서 다시 만들어야 하면 false
+     */
+    public boolean rebuild(Consumer<MemberSearchIndex> loader) {
+        MemberSearchIndex fresh = new MemberSearchIndex();
+        synchronized (this) {
+            replay = new ArrayList<>();
+            replayIncomplete = false;
+        }
+        try {
+            loader.accept(fresh);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                replay = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            replay.forEach(change -> change.accept(fresh.state));
+            state = fresh.state;
+            replay = null;
+            return !replayIncomplete;
+        }
+    }
+
+    public int size() {
+        return state.documents.size();
+    }
+
+    /**
+     * @param maxEdits FUZZY 모드에서 허용하는 편집 거리
+     * @param minAge   null 이면 제한 없음
+     * @param maxAge   null 이면 제한 없음
+     */
+    public Page<MemberSearchDto> search(String query, Mode mode, int maxEdits, Integer minAge, Integer maxAge, Pageable pageable) {
+        String q = query.toLowerCase();
+        List<MemberSearchDto> matches = candidates(state, q, mode, maxEdits)
+                .filter(doc -> minAge == null || doc.getAge() >= minAge)
+                .filter(doc -> maxAge == null || doc.getAge() <= maxAge)
+                .sorted(ORDER)
+                .collect(Collectors.toList());
+
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+    }
+
+    private void record(Consumer<State> change) {
+        if (replay != null) {
+            replay.add(change);
+        }
+    }
+
+    private static Stream<MemberSearchDto> candidates(State s, String q, Mode mode, int maxEdits) {
+        switch (mode) {
+            case PREFIX:
+                return s.usernames.subMap(q, true, q + Character.MAX_VALUE, true).values().stream()
+                        .flatMap(Collection::stream)
+                        .map(s.documents::get)
+                        .filter(doc -> doc != null);
+            case INFIX:
+                return infixCandidates(s, q)
+                        .filter(doc -> doc.getUsername().toLowerCase().contains(q));
+            case FUZZY:
+                return fuzzyCandidates(s, q, maxEdits)
+                        .filter(doc -> editDistance(doc.getUsername().toLowerCase(), q, maxEdits) <= maxEdits);
+            default:
+                throw new IllegalArgumentException("unknown search mode: " + mode);
+        }
+    }
+
+    private static Stream<MemberSearchDto> infixCandidates(State s, String q) {
+        // 3-gram 을 만들 수 없는 짧은 검색어는 전체를 확인한다.
+        if (q.length() < GRAM) {
+            return s.documents.values().stream();
+        }
+        Set<Long> ids = null;
+        for (String gram : grams(q)) {
+            Set<Long> posting = s.trigrams.getOrDefault(gram, Set.of());
+            if (ids == null) {
+                ids = new HashSet<>(posting);
+            } else {
+                ids.retainAll(posting);
+            }
+            if (ids.isEmpty()) {
+                return Stream.empty();
+            }
+        }
+        return toDocuments(s, ids);
+    }
+
+    /**
+     * 편집 한 번은 최대 GRAM 개의 3-gram 을 바꾸므로,
+     * 편집 거리 maxEdits 이내의 문자열은 검색어의 3-gram 중 최소 (개수 - GRAM * maxEdits) 개를 공유한다.
+     */
+    private static Stream<MemberSearchDto> fuzzyCandidates(State s, String q, int maxEdits) {
+        Set<String> queryGrams = grams(q);
+        int minShared = queryGrams.size() - GRAM * maxEdits;
+        if (minShared <= 0) {
+            return s.documents.values().stream();
+        }
+        Map<Long, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            for (Long id : s.trigrams.getOrDefault(gram, Set.of())) {
+                shared.merge(id, 1, Integer::sum);
+            }
+        }
+        return toDocuments(s, shared.entrySet().stream()
+                .filter(entry -> entry.getValue() >= minShared)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList()));
+    }
+
+    private static Stream<MemberSearchDto> toDocuments(State s, Collection<Long> ids) {
+        return ids.stream()
+                .map(s.documents::get)
+                .filter(doc -> doc != null);
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static void removeFrom(Map<String, Set<Long>> index, String key, Long id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * 레벤슈타인 거리. limit 을 넘으면 더 계산하지 않고 limit + 1 을 돌려준다.
+     */
+    static int editDistance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * 색인 본체. rebuild 는 새 State 를 채워서 참조만 바꾼다.
+     */
+    private static class State {
+        private final Map<Long, MemberSearchDto> documents = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, Set<Long>> usernames = new ConcurrentSkipListMap<>();
+        private final Map<String, Set<Long>> trigrams = new ConcurrentHashMap<>();
+
+        void put(Long id, String username, int age) {
+            remove(id);
+            if (username == null) {
+                return;
+            }
+            documents.put(id, new MemberSearchDto(id, username, age));
+            String key = username.toLowerCase();
+            usernames.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+            for (String gram : grams(key)) {
+                trigrams.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        void remove(Long id) {
+            MemberSearchDto removed = documents.remove(id);
+            if (removed == null) {
+                return;
+            }
+            String key = removed.getUsername().toLowerCase();
+            removeFrom(usernames, key, id);
+            for (String gram : grams(key)) {
+                removeFrom(trigrams, gram, id);
+            }
+        }
+
+        void agePlus(int age) {
+            documents.replaceAll((id, doc) -> doc.getAge() >= age
+                    ? new MemberSearchDto(id, doc.getUsername(), doc.getAge() + 1)
+                    : doc);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package study.datajpa.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * MemberSearchIndex 를 JPA 쓰기와 동기화한다.
+ * <p>
+ * 1. 애플리케이션이 뜨면 member_id 순으로 나눠서 전체 색인을 만든다.
+ *    다시 만들 때는 전용 스레드에서 새 색인을 채운 뒤 바꾸므로 그동안 검색은 기존 색인으로 동작한다.
+ * 2. Member insert / update / delete 는 트랜잭션이 커밋된 뒤에 색인에 반영한다. (롤백된 변경은 색인되지 않는다)
+ * 3. 벌크 연산도 커밋 뒤에 반영한다. bulkAgePlus, deleteAllByIdInBatch 는 색인에서 직접 계산하고, 나머지는 색인을 다시 만든다.
+ * 4. 다른 노드의 변경은 CacheInvalidationBus 로 받아 해당 회원만 전용 스레드에서 다시 읽는다. (datajpa.cache-bus.enabled=true)
+ */
+@Slf4j
+public class MemberSearchIndexSynchronizer
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener, MemberBulkUpdateListener,
+        CacheInvalidationListener, DisposableBean {
+
+    private static final int LOAD_CHUNK_SIZE = 10_000;
+
+    private final MemberSearchIndex index;
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService rebuildExecutor;
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    public MemberSearchIndexSynchronizer(MemberSearchIndex index, EntityManager em, PlatformTransactionManager transactionManager) {
+        this.index = index;
+        this.em = em;
+        // afterCommit 에서 호출되면 이미 커밋된 트랜잭션에 참여하지 않도록 항상 새 트랜잭션으로 읽는다.
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "member-search-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        boolean complete = index.rebuild(this::load);
+        log.info("member search index built: {} members in {}ms", index.size(), System.currentTimeMillis() - start);
+        if (!complete) {
+            requestRebuild();
+        }
+    }
+
+    /**
+     * 요청 스레드(afterCommit)나 무효화 수신 스레드를 막지 않도록 전용 스레드에서 다시 만든다.
+     * 아직 시작하지 않은 요청이 있으면 합친다.
+     */
+    public void requestRebuild() {
+        if (!rebuildRequested.compareAndSet(false, true)) {
+            return;
+        }
+        rebuildExecutor.execute(() -> {
+            rebuildRequested.set(false);
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.warn("member search index rebuild failed", e);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void load(MemberSearchIndex target) {
+        Long lastId = 0L;
+        while (true) {
+            Long from = lastId;
+            List<Object[]> rows = readOnlyTransaction.execute(status ->
+                    em.createQuery("select m.id, m.username, m.age from Member m where m.id > :lastId order by m.id", Object[].class)
+                            .setParameter("lastId", from)
+                            .setMaxResults(LOAD_CHUNK_SIZE)
+                            .getResultList());
+            if (rows == null || rows.isEmpty()) {
+                break;
+            }
+            for (Object[] row : rows) {
+                target.put((Long) row[0], (String) row[1], (Integer) row[2]);
+            }
+            lastId = (Long) rows.get(rows.size() - 1)[0];
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onMemberChanged(event.getPersister(), (Long) event.getId(), event.getState());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        onMemberChanged(event.getPersister(), (Long) event.getId(), event.getState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (isMember(event.getPersister())) {
+            Long id = (Long) event.getId();
+            afterCommit(() -> index.remove(id));
+        }
+    }
+
+    @Override
+    public void onBulkUpdate(Session session, String method, Object[] args, Object rows, Set<Long> ids) {
+        if (method.equals("bulkAgePlus")) {
+            int age = (Integer) args[0];
+            afterCommit(() -> index.agePlus(age));
+        } else if (method.equals("deleteAllByIdInBatch") && ids != null) {
+            afterCommit(() -> ids.forEach(index::remove));
+        } else {
+            afterCommit(this::requestRebuild);
+        }
+    }
+
+    /**
+     * 다른 노드에서 바뀐 회원을 DB 에서 다시 읽는다. 없어졌으면 색인에서 뺀다.
+     * 수신 스레드를 막지 않도록 다시 만들기와 같은 전용 스레드에서 읽는다.
+     */
+    @Override
+    public void invalidate(String region, Set<Long> ids) {
+        if (!region.equals("Member")) {
+            return;
+        }
+        Set<Long> targets = Set.copyOf(ids);
+        rebuildExecutor.execute(() -> {
+            try {
+                reload(targets);
+            } catch (RuntimeException e) {
+                log.warn("member search index reload failed: {} members", targets.size(), e);
+            }
+        });
+    }
+
+    private void reload(Set<Long> ids) {
+        List<Object[]> rows = readOnlyTransaction.execute(status ->
+                em.createQuery("select m.id, m.username, m.age from Member m where m.id in :ids", Object[].class)
+                        .setParameter("ids", ids)
+                        .getResultList());
+        Set<Long> missing = new HashSet<>(ids);
+        for (Object[] row : rows == null ? List.<Object[]>of() : rows) {
+            index.put((Long) row[0], (String) row[1], (Integer) row[2]);
+            missing.remove((Long) row[0]);
+        }
+        missing.forEach(index::remove);
+    }
+
+    @Override
+    public void invalidateRegion(String region) {
+        if (region.equals("Member")) {
+            requestRebuild();
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        requestRebuild();
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void onMemberChanged(EntityPersister persister, Long id, Object[] state) {
+        if (!isMember(persister)) {
+            return;
+        }
+        String username = (String) state[persister.getEntityMetamodel().getPropertyIndex("username")];
+        int age = (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+        afterCommit(() -> index.put(id, username, age));
+    }
+
+    private boolean isMember(EntityPersister persister) {
+        return persister.getEntityName().equals(Member.class.getName());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+
+/**
+ * MemberColumnarSnapshot 조회 조건. 지정하지 않은 조건은 모두 통과한다.
+ * <p>
+ * ex) MemberSnapshotFilter.all().ageBetween(20, 30).usernameLike("member%")
+ */
+@Getter
+public class MemberSnapshotFilter {
+
+    private int minAge = Integer.MIN_VALUE;
+    private int maxAge = Integer.MAX_VALUE;
+    private Long teamId;
+    private String usernamePattern;
+
+    public static MemberSnapshotFilter all() {
+        return new MemberSnapshotFilter();
+    }
+
+    public MemberSnapshotFilter ageBetween(Integer minAge, Integer maxAge) {
+        this.minAge = minAge == null ? Integer.MIN_VALUE : minAge;
+        this.maxAge = maxAge == null ? Integer.MAX_VALUE : maxAge;
+        return this;
+    }
+
+    public MemberSnapshotFilter team(Long teamId) {
+        this.teamId = teamId;
+        return this;
+    }
+
+    /**
+     * SQL like 패턴 (% 와 _ 사용)
+     */
+    public MemberSnapshotFilter usernameLike(String usernamePattern) {
+        this.usernamePattern = usernamePattern;
+        return this;
+    }
+}
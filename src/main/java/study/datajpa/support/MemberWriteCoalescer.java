@@ -0,0 +1,317 @@
+package study.datajpa.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 회원에 대한 잦은 변경을 메모리에서 합쳐 두었다가 한 번에 반영한다. (write-behind)
+ * <p>
+ * 회원별로 필드마다 마지막 값만 남기고, maxDelayMillis 가 지나거나 버퍼에 maxPending 명이 쌓이면
+ * 하나의 트랜잭션에서 변경 감지로 UPDATE 한다. 반환되는 future 는 그 변경이 커밋되면 완료된다.
+ * <p>
+ * LOCAL_LOG 이면 버퍼에 넣기 전에 로그 파일에 먼저 쓰고, flush 가 커밋된 뒤에 지운다.
+ * 기동 시 남아 있는 로그는 다시 버퍼에 올린다.
+ * <p>
+ * flush 는 요청 스레드가 아닌 스케줄러에서 실행되므로 변경을 요청한 테넌트별로 버퍼를 나눠 두고,
+ * 테넌트마다 그 테넌트로 지정한 트랜잭션에서 반영한다. (TenantScope)
+ */
+@Slf4j
+public class MemberWriteCoalescer implements DisposableBean {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberWriteCoalescingProperties properties;
+    private final TenantScope tenantScope;
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+    private final Object flushLock = new Object();
+    // 테넌트 -> 회원 id -> 변경 (멀티 테넌시가 꺼져 있으면 테넌트는 null)
+    private Map<String, Map<Long, PendingMemberUpdate>> pending = new HashMap<>();
+    private CompletableFuture<Void> batchFuture = new CompletableFuture<>();
+
+    private final Path logPath;
+    private final Path flushingLogPath;
+    private FileOutputStream logStream;
+    private Writer logWriter;
+
+    public MemberWriteCoalescer(EntityManager em, PlatformTransactionManager transactionManager,
+                                MemberWriteCoalescingProperties properties, TenantScope tenantScope) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.tenantScope = tenantScope;
+
+        if (properties.getDurability() == MemberWriteCoalescingProperties.Durability.LOCAL_LOG) {
+            this.logPath = Paths.get(properties.getLogPath());
+            this.flushingLogPath = Paths.get(properties.getLogPath() + ".flushing");
+            replay(flushingLogPath);
+            replay(logPath);
+            openLog();
+        } else {
+            this.logPath = null;
+            this.flushingLogPath = null;
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "member-write-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                properties.getMaxDelayMillis(), properties.getMaxDelayMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public CompletableFuture<Void> changeAge(Long memberId, int age) {
+        return submit(memberId, PendingMemberUpdate.AGE, age);
+    }
+
+    public CompletableFuture<Void> changeUsername(Long memberId, String username) {
+        return submit(memberId, PendingMemberUpdate.USERNAME, username);
+    }
+
+    public int pendingCount() {
+        synchronized (lock) {
+            return count(pending);
+        }
+    }
+
+    private CompletableFuture<Void> submit(Long memberId, String field, Object value) {
+        String tenant = tenantScope.current();
+        CompletableFuture<Void> future;
+        boolean full;
+        synchronized (lock) {
+            if (logWriter != null) {
+                appendLog(tenant, memberId, field, value);
+            }
+            buffer(tenant, memberId).set(field, value);
+            future = batchFuture;
+            full = count(pending) >= properties.getMaxPending();
+        }
+        if (full) {
+            scheduler.execute(this::flushQuietly);
+        }
+        return future;
+    }
+
+    /**
+     * 버퍼를 비우고 한 트랜잭션으로 반영한다. 실패하면 버퍼로 되돌려 다음 flush 에서 다시 시도한다.
+     *
+     * @return 반영한 회원 수
+     */
+    public int flush() {
+        // flush 끼리는 순서대로. 앞선 flush 가 flushing 로그를 지우기 전에 다음 flush 가 로그를 넘기면 안 된다.
+        synchronized (flushLock) {
+            return flushBatch();
+        }
+    }
+
+    private int flushBatch() {
+        Map<String, Map<Long, PendingMemberUpdate>> batch;
+        CompletableFuture<Void> future;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            batch = pending;
+            future = batchFuture;
+            pending = new HashMap<>();
+            batchFuture = new CompletableFuture<>();
+            if (logWriter != null) {
+                rotateLog();
+            }
+        }
+
+        // 반영하지 못한 테넌트만 버퍼로 되돌린다. (이미 커밋한 테넌트를 다시 반영해도 같은 값이라 로그는 그대로 둔다)
+        Map<String, Map<Long, PendingMemberUpdate>> remaining = new HashMap<>(batch);
+        try {
+            for (Map.Entry<String, Map<Long, PendingMemberUpdate>> entry : batch.entrySet()) {
+                tenantScope.callAs(entry.getKey(), () -> {
+                    transactionTemplate.executeWithoutResult(status -> apply(entry.getValue()));
+                    return null;
+                });
+                remaining.remove(entry.getKey());
+            }
+        } catch (RuntimeException e) {
+            requeue(remaining, future);
+            throw e;
+        }
+
+        if (flushingLogPath != null) {
+            deleteFlushingLog();
+        }
+        future.complete(null);
+        return count(batch);
+    }
+
+    private void apply(Map<Long, PendingMemberUpdate> batch) {
+        List<Member> members = em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", batch.keySet())
+                .getResultList();
+        for (Member member : members) {
+            batch.get(member.getId()).applyTo(member);
+        }
+        if (members.size() < batch.size()) {
+            log.warn("member write coalescer: {} members no longer exist", batch.size() - members.size());
+        }
+    }
+
+    private void requeue(Map<String, Map<Long, PendingMemberUpdate>> batch, CompletableFuture<Void> future) {
+        synchronized (lock) {
+            batch.forEach((tenant, updates) ->
+                    updates.forEach((id, older) -> buffer(tenant, id).mergeOlder(older)));
+            batchFuture.whenComplete((result, ex) -> {
+                if (ex != null) {
+                    future.completeExceptionally(ex);
+                } else {
+                    future.complete(null);
+                }
+            });
+        }
+    }
+
+    /**
+     * lock 안에서 호출한다.
+     */
+    private PendingMemberUpdate buffer(String tenant, Long memberId) {
+        return pending.computeIfAbsent(tenant, key -> new HashMap<>())
+                .computeIfAbsent(memberId, id -> new PendingMemberUpdate());
+    }
+
+    private static int count(Map<String, Map<Long, PendingMemberUpdate>> updates) {
+        return updates.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("member write coalescer flush failed, will retry", e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        try {
+            flush();
+        } finally {
+            closeLog();
+        }
+    }
+
+    // 로그 한 줄: URL 인코딩된 테넌트(없으면 빈 값) \t memberId \t field \t URL 인코딩된 값
+
+    private void appendLog(String tenant, Long memberId, String field, Object value) {
+        try {
+            logWriter.write((tenant == null ? "" : URLEncoder.encode(tenant, StandardCharsets.UTF_8)) + "\t"
+                    + memberId + "\t" + field + "\t"
+                    + URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8) + "\n");
+            logWriter.flush();
+            if (properties.isFsync()) {
+                logStream.getFD().sync();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void replay(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 4);
+                if (parts.length < 4) {
+                    continue; // 쓰다 만 마지막 줄
+                }
+                String tenant = parts[0].isEmpty() ? null : URLDecoder.decode(parts[0], StandardCharsets.UTF_8);
+                String raw = URLDecoder.decode(parts[3], StandardCharsets.UTF_8);
+                Object value = PendingMemberUpdate.AGE.equals(parts[2]) ? (Object) Integer.valueOf(raw) : raw;
+                buffer(tenant, Long.valueOf(parts[1])).set(parts[2], value);
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("member write coalescer: replayed {} updates from {}", count, path);
+    }
+
+    private void openLog() {
+        try {
+            logStream = new FileOutputStream(logPath.toFile(), true);
+            logWriter = new OutputStreamWriter(logStream, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 지금까지의 로그를 flushing 로그 뒤에 붙이고 새 로그를 연다.
+     * 이전 flush 가 실패했다면 그 내용이 flushing 로그에 남아 있으므로 덮어쓰지 않고 이어 붙인다.
+     */
+    private void rotateLog() {
+        closeLog();
+        try {
+            if (Files.exists(logPath)) {
+                Files.write(flushingLogPath, Files.readAllBytes(logPath),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                Files.delete(logPath);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        openLog();
+    }
+
+    private void deleteFlushingLog() {
+        try {
+            Files.deleteIfExists(flushingLogPath);
+        } catch (IOException e) {
+            log.warn("member write coalescer: failed to delete {}", flushingLogPath, e);
+        }
+    }
+
+    private void closeLog() {
+        if (logWriter == null) {
+            return;
+        }
+        try {
+            logWriter.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            logWriter = null;
+            logStream = null;
+        }
+    }
+}
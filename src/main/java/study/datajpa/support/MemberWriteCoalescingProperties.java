@@ -0,0 +1,32 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datajpa.write-coalescing")
+public class MemberWriteCoalescingProperties {
+
+    public enum Durability {
+        /**
+         * 버퍼는 메모리에만 있다. 프로세스가 비정상 종료되면 flush 되지 않은 변경은 사라진다.
+         */
+        MEMORY,
+        /**
+         * 버퍼에 넣기 전에 로컬 로그 파일에 먼저 기록하고, 기동 시 flush 되지 않은 로그를 다시 적용한다.
+         */
+        LOCAL_LOG
+    }
+
+    private boolean enabled;
+    private long maxDelayMillis = 100;
+    private int maxPending = 1000;
+    private Durability durability = Durability.MEMORY;
+    private String logPath = "member-write-coalescer.log";
+    /**
+     * LOCAL_LOG 에서 매 기록마다 fsync 한다. 느리지만 OS 장애에도 남는다.
+     */
+    private boolean fsync;
+}
@@ -0,0 +1,117 @@
+package study.datajpa.support;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 힙 밖(direct buffer)에 고정 폭 원시 값을 행 번호 순서로 담는 컬럼
+ * <p>
+ * 용량이 모자라면 두 배로 늘려 복사한다. 동기화는 사용하는 쪽에서 한다.
+ * <p>
+ * direct buffer 는 힙이 여유로우면 GC 가 늦게 거둬가므로 다 쓴 버퍼는 바로 해제한다. (release)
+ */
+final class OffHeapColumn {
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // 해제할 수 없으면 GC 에 맡긴다.
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final int width;
+    private ByteBuffer buffer;
+
+    private OffHeapColumn(int width, int capacity) {
+        this.width = width;
+        this.buffer = allocate(width, capacity);
+    }
+
+    static OffHeapColumn longs(int capacity) {
+        return new OffHeapColumn(Long.BYTES, capacity);
+    }
+
+    static OffHeapColumn ints(int capacity) {
+        return new OffHeapColumn(Integer.BYTES, capacity);
+    }
+
+    long getLong(int row) {
+        return buffer.getLong(row * width);
+    }
+
+    void putLong(int row, long value) {
+        ensureCapacity(row + 1);
+        buffer.putLong(row * width, value);
+    }
+
+    int getInt(int row) {
+        return buffer.getInt(row * width);
+    }
+
+    void putInt(int row, int value) {
+        ensureCapacity(row + 1);
+        buffer.putInt(row * width, value);
+    }
+
+    long offHeapBytes() {
+        return buffer == null ? 0 : buffer.capacity();
+    }
+
+    /**
+     * 힙 밖 메모리를 바로 돌려준다. 이후에 읽거나 쓰면 NullPointerException
+     */
+    void release() {
+        ByteBuffer released = buffer;
+        buffer = null;
+        free(released);
+    }
+
+    private void ensureCapacity(int rows) {
+        int capacity = buffer.capacity() / width;
+        if (rows <= capacity) {
+            return;
+        }
+        int maxCapacity = Integer.MAX_VALUE / width;
+        ByteBuffer grown = allocate(width, Math.max(rows, (int) Math.min((long) capacity * 2, maxCapacity)));
+        ByteBuffer source = buffer.duplicate();
+        source.clear();
+        grown.put(source);
+        grown.clear();
+        ByteBuffer old = buffer;
+        buffer = grown;
+        free(old);
+    }
+
+    private static ByteBuffer allocate(int width, int capacity) {
+        long bytes = (long) Math.max(capacity, 1) * width;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("off-heap column too large: " + capacity + " rows x " + width + " bytes");
+        }
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private static void free(ByteBuffer buffer) {
+        if (buffer == null || INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            // 해제하지 못하면 GC 가 거둬간다.
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.support;
+
+import study.datajpa.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * 같은 프로세스 안에서 outbox 이벤트를 받는 소비자
+ * <p>
+ * OutboxRelay 가 id 순서대로 배치 단위로 전달한다.
+ * 발행 표시는 모든 소비자가 성공한 뒤에 커밋되므로 실패하면 같은 배치를 다시 받는다. (at-least-once)
+ */
+public interface OutboxConsumer {
+
+    void onEvents(List<OutboxEvent> events);
+}
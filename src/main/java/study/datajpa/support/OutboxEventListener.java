@@ -0,0 +1,109 @@
+package study.datajpa.support;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.bytecode.enhance.spi.LazyPropertyInitializer;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.OutboxEvent;
+import study.datajpa.entity.Team;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Member / Team 의 insert, update, delete 를 outbox 이벤트로 남긴다.
+ * <p>
+ * AuditingEntityListener, @PrePersist/@PreUpdate 와 같은 엔티티 생명주기 시점이지만,
+ * 실제 SQL 이 실행된 뒤(post) 호출되므로 flush 되지 않은 변경은 기록되지 않는다.
+ * update 는 변경된 컬럼만 payload 에 담는다.
+ */
+@RequiredArgsConstructor
+public class OutboxEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final OutboxWriter outboxWriter;
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (!isTracked(event.getEntity())) {
+            return;
+        }
+        Map<String, Object> payload = properties(event.getPersister(), event.getState(), null, event.getSession());
+        outboxWriter.write(event.getSession(), aggregateType(event.getEntity()), String.valueOf(event.getId()),
+                OutboxEvent.CREATED, payload);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!isTracked(event.getEntity())) {
+            return;
+        }
+        Map<String, Object> payload = properties(event.getPersister(), event.getState(), event.getDirtyProperties(), event.getSession());
+        outboxWriter.write(event.getSession(), aggregateType(event.getEntity()), String.valueOf(event.getId()),
+                OutboxEvent.UPDATED, payload);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (!isTracked(event.getEntity())) {
+            return;
+        }
+        outboxWriter.write(event.getSession(), aggregateType(event.getEntity()), String.valueOf(event.getId()),
+                OutboxEvent.DELETED, Map.of());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private boolean isTracked(Object entity) {
+        return entity instanceof Member || entity instanceof Team;
+    }
+
+    private String aggregateType(Object entity) {
+        return entity instanceof Member ? "Member" : "Team";
+    }
+
+    /**
+     * 컬렉션은 제외하고, 연관 엔티티는 식별자만 담는다.
+     * dirtyProperties 가 있으면 변경된 속성만 담는다.
+     */
+    private Map<String, Object> properties(EntityPersister persister, Object[] state, int[] dirtyProperties, EventSource session) {
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        Map<String, Object> payload = new LinkedHashMap<>();
+
+        int[] indexes = dirtyProperties != null ? dirtyProperties : allIndexes(names.length);
+        for (int i : indexes) {
+            if (types[i].isCollectionType()) {
+                continue;
+            }
+            Object value = state[i];
+            // 아직 로딩되지 않은 지연 로딩 속성은 변경되지 않은 것이므로 제외한다.
+            if (value == LazyPropertyInitializer.UNFETCHED_PROPERTY) {
+                continue;
+            }
+            if (types[i].isEntityType() && value != null) {
+                value = session.getContextEntityIdentifier(value);
+            }
+            payload.put(names[i], value);
+        }
+        return payload;
+    }
+
+    private int[] allIndexes(int length) {
+        int[] indexes = new int[length];
+        for (int i = 0; i < length; i++) {
+            indexes[i] = i;
+        }
+        return indexes;
+    }
+}
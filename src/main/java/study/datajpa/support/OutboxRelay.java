@@ -0,0 +1,81 @@
+package study.datajpa.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.OutboxEvent;
+import study.datajpa.repository.OutboxEventRepository;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * 발행되지 않은 outbox 이벤트를 배치로 읽어 소비자에게 전달하고 발행 완료로 표시한다.
+ * <p>
+ * outbox 테이블은 테넌트 스키마마다 있으므로 스케줄러는 테넌트를 하나씩 돌며 발행한다.
+ */
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final List<OutboxConsumer> consumers = new CopyOnWriteArrayList<>();
+    private final TenantScope tenantScope;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, PlatformTransactionManager transactionManager,
+                       int batchSize, List<OutboxConsumer> consumers, TenantScope tenantScope) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.consumers.addAll(consumers);
+        this.tenantScope = tenantScope;
+    }
+
+    public void subscribe(OutboxConsumer consumer) {
+        consumers.add(consumer);
+    }
+
+    @Scheduled(fixedDelayString = "${datajpa.outbox.relay-interval-millis:1000}")
+    public void relayScheduled() {
+        // 한 테넌트가 실패해도 다른 테넌트는 발행한다.
+        for (String tenant : tenantScope.tenants()) {
+            try {
+                tenantScope.callAs(tenant, () -> {
+                    // 쌓인 이벤트가 배치 크기보다 많으면 바로 다음 배치를 처리한다.
+                    int published;
+                    do {
+                        published = relay();
+                    } while (published == batchSize);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                log.warn("outbox relay failed for tenant {}, will retry", tenant, e);
+            }
+        }
+    }
+
+    /**
+     * 현재 테넌트의 이벤트를 한 배치 발행한다.
+     *
+     * @return 발행한 이벤트 수
+     */
+    public int relay() {
+        Integer published = transactionTemplate.execute(status -> {
+            List<OutboxEvent> events = outboxEventRepository.findByPublishedFalseOrderByIdAsc(PageRequest.of(0, batchSize));
+            if (events.isEmpty()) {
+                return 0;
+            }
+            for (OutboxConsumer consumer : consumers) {
+                consumer.onEvents(events);
+            }
+            List<Long> ids = events.stream().map(OutboxEvent::getId).collect(Collectors.toList());
+            outboxEventRepository.markPublished(ids);
+            return events.size();
+        });
+        return published == null ? 0 : published;
+    }
+}
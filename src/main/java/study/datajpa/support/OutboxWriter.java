@@ -0,0 +1,91 @@
+package study.datajpa.support;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import study.datajpa.entity.OutboxEvent;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * outbox_event 행을 현재 세션의 커넥션으로 저장한다.
+ * <p>
+ * flush 도중(Hibernate post-insert/update/delete 이벤트)에는 em.persist() 를 쓸 수 없으므로 JDBC 로 직접 저장한다.
+ */
+@RequiredArgsConstructor
+public class OutboxWriter implements MemberBulkUpdateListener {
+
+    private static final String INSERT_SQL = "insert into outbox_event "
+            + "(aggregate_type, aggregate_id, event_type, payload, created_date, published) values (?, ?, ?, ?, ?, false)";
+
+    // 이벤트 하나에 담는 최대 회원 id 수
+    private static final int BULK_IDS_PER_EVENT = 1000;
+
+    private final ObjectMapper objectMapper;
+
+    public void write(Session session, String aggregateType, String aggregateId, String eventType, Map<String, Object> payload) {
+        String json = toJson(payload);
+        session.doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+                ps.setString(1, aggregateType);
+                ps.setString(2, aggregateId);
+                ps.setString(3, eventType);
+                ps.setString(4, json);
+                ps.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * 벌크 연산은 실행한 메서드와 파라미터, 변경된 행 수와 대상 회원 id 를 남긴다.
+     * id 는 BULK_IDS_PER_EVENT 개씩 나눠 여러 이벤트로 남기고, 대상을 알 수 없으면 ids 없이 하나만 남긴다.
+     * ex) bulkAgePlus(20) -> {"method":"bulkAgePlus","args":[20],"rows":3,"ids":[1,2,3]}
+     */
+    @Override
+    public boolean requiresTargetIds() {
+        return true;
+    }
+
+    @Override
+    public void onBulkUpdate(Session session, String method, Object[] args, Object rows, Set<Long> ids) {
+        if (ids == null) {
+            write(session, "Member", null, OutboxEvent.BULK_UPDATED, bulkPayload(method, args, rows, null));
+            return;
+        }
+        List<Long> sorted = new ArrayList<>(ids);
+        sorted.sort(null);
+        for (int from = 0; from < sorted.size(); from += BULK_IDS_PER_EVENT) {
+            List<Long> chunk = sorted.subList(from, Math.min(sorted.size(), from + BULK_IDS_PER_EVENT));
+            write(session, "Member", null, OutboxEvent.BULK_UPDATED, bulkPayload(method, args, rows, chunk));
+        }
+    }
+
+    private Map<String, Object> bulkPayload(String method, Object[] args, Object rows, List<Long> ids) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("method", method);
+        payload.put("args", Arrays.asList(args));
+        payload.put("rows", rows);
+        if (ids != null) {
+            payload.put("ids", ids);
+        }
+        return payload;
+    }
+
+    private String toJson(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("outbox payload is not serializable: " + payload, e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package study.datajpa.support;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 페이징 조회의 content 쿼리와 count 쿼리를 동시에 실행한다.
+ * <p>
+ * count 쿼리는 별도 스레드의 새 읽기 전용 트랜잭션(= 다른 커넥션)에서 실행되고,
+ * content 가 페이지 크기보다 작아 전체 개수를 알 수 있으면 count 결과를 기다리지 않는다. (PageableExecutionUtils)
+ * <p>
+ * [주의점]
+ * count 는 호출한 트랜잭션 밖에서 실행되므로 아직 커밋하지 않은 변경은 세지 않는다. 읽기 전용 API 에서만 쓰자.
+ * <p>
+ * count 가 커넥션을 하나 더 쓰므로 동시에 실행하는 count 는 커넥션 풀 크기보다 작게 제한한다. (count-pool-size)
+ * 자리가 없으면 기다리지 않고 호출한 트랜잭션의 커넥션에서 content 다음에 순서대로 센다.
+ */
+@Component
+public class ParallelPageExecutor implements DisposableBean {
+
+    private final TransactionTemplate countTransaction;
+    private final ExecutorService executor;
+    private final Semaphore countSlots;
+
+    public ParallelPageExecutor(PlatformTransactionManager transactionManager,
+                                @Value("${datajpa.page.count-pool-size:4}") int poolSize,
+                                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        if (poolSize >= connectionPoolSize) {
+            throw new IllegalArgumentException("datajpa.page.count-pool-size(" + poolSize
+                    + ") must be smaller than the connection pool size(" + connectionPoolSize + ")");
+        }
+        this.countTransaction = new TransactionTemplate(transactionManager);
+        this.countTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.countTransaction.setReadOnly(true);
+        this.executor = Executors.newFixedThreadPool(poolSize);
+        this.countSlots = new Semaphore(poolSize);
+    }
+
+    public <T> Page<T> getPage(Pageable pageable, Supplier<List<T>> contentQuery, LongSupplier countQuery) {
+        if (pageable.isUnpaged()) {
+            List<T> content = contentQuery.get();
+            return new PageImpl<>(content, pageable, content.size());
+        }
+
+        if (!countSlots.tryAcquire()) {
+            List<T> content = contentQuery.get();
+            return PageableExecutionUtils.getPage(content, pageable, countQuery);
+        }
+
+        CompletableFuture<Long> count = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                if (!count.isDone()) {
+                    count.complete(countTransaction.execute(status -> countQuery.getAsLong()));
+                }
+            } catch (RuntimeException e) {
+                count.completeExceptionally(e);
+            } finally {
+                // 실제로 커넥션을 반납한 뒤에 자리를 돌려준다.
+                countSlots.release();
+            }
+        });
+        try {
+            List<T> content = contentQuery.get();
+            return PageableExecutionUtils.getPage(content, pageable, () -> join(count));
+        } finally {
+            // count 가 필요 없었거나 content 조회가 실패한 경우 아직 시작하지 않았다면 실행하지 않는다.
+            count.cancel(false);
+        }
+    }
+
+    private long join(CompletableFuture<Long> count) {
+        try {
+            return count.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,49 @@
+package study.datajpa.support;
+
+import study.datajpa.entity.Member;
+
+/**
+ * 한 회원에 대해 버퍼에 모인 변경. 필드별로 마지막 값만 남는다.
+ */
+class PendingMemberUpdate {
+
+    static final String AGE = "age";
+    static final String USERNAME = "username";
+
+    private Integer age;
+    private String username;
+    private boolean usernameChanged;
+
+    void set(String field, Object value) {
+        if (AGE.equals(field)) {
+            age = (Integer) value;
+        } else if (USERNAME.equals(field)) {
+            username = (String) value;
+            usernameChanged = true;
+        } else {
+            throw new IllegalArgumentException("unknown field: " + field);
+        }
+    }
+
+    /**
+     * 더 오래된 변경을 합친다. 이미 있는 (더 최근) 값은 덮어쓰지 않는다.
+     */
+    void mergeOlder(PendingMemberUpdate older) {
+        if (age == null) {
+            age = older.age;
+        }
+        if (!usernameChanged && older.usernameChanged) {
+            username = older.username;
+            usernameChanged = true;
+        }
+    }
+
+    void applyTo(Member member) {
+        if (age != null) {
+            member.changeAge(age);
+        }
+        if (usernameChanged) {
+            member.changeUsername(username);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package study.datajpa.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 메서드 실행 직전에 영속성 컨택스트가 임계치를 넘었으면 flush() 후 clear() 한다. (PersistenceContextGuard.checkpoint)
+ * <p>
+ * clear() 이후 호출자가 들고 있던 엔티티는 준영속 상태가 되어 변경 감지가 동작하지 않는다.
+ * 앞에서 조회한 엔티티를 더 이상 쓰지 않는 곳(벌크 루프의 청크 경계 등)에만 붙인다.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PersistenceContextCheckpoint {
+}
@@ -0,0 +1,45 @@
+package study.datajpa.support;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 벌크 삭제로 지워질 엔티티를 영속성 컨텍스트에서 떼어낸다.
+ * <p>
+ * 벌크 연산은 영속성 컨텍스트를 거치지 않으므로, 그대로 두면 지워진 회원이 find() 로 다시 조회되거나 flush 때 갱신된다.
+ * 회원을 떼어낼 때는 이미 로딩된 team.members 에서도 뺀다.
+ */
+public class PersistenceContextEvictor {
+
+    public static <T> int evict(Session session, Class<T> type, Predicate<T> condition) {
+        List<T> targets = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : ((SessionImplementor) session).getPersistenceContext().reentrantSafeEntityEntries()) {
+            Object entity = entry.getKey();
+            if (type.isInstance(entity) && condition.test(type.cast(entity))) {
+                targets.add(type.cast(entity));
+            }
+        }
+        for (T target : targets) {
+            if (target instanceof Member) {
+                detachFromTeam((Member) target);
+            }
+            session.evict(target);
+        }
+        return targets.size();
+    }
+
+    private static void detachFromTeam(Member member) {
+        if (member.getTeam() != null && Hibernate.isInitialized(member.getTeam())
+                && Hibernate.isInitialized(member.getTeam().getMembers())) {
+            member.getTeam().getMembers().remove(member);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package study.datajpa.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.MergeEvent;
+import org.hibernate.event.spi.MergeEventListener;
+import org.hibernate.event.spi.PersistEvent;
+import org.hibernate.event.spi.PersistEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+import javax.persistence.EntityManager;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 영속성 컨택스트에 쌓이는 엔티티 수를 감시한다.
+ * <p>
+ * findAll(), findMemberCustom() 처럼 많은 엔티티를 한 트랜잭션에서 조회하면
+ * 엔티티와 변경 감지용 스냅샷이 트랜잭션이 끝날 때까지 메모리에 남는다.
+ * 엔티티가 로딩, 저장(persist, merge)될 때와 flush 될 때마다 관리 중인 엔티티 수를 확인하고,
+ * 엔드포인트별 최댓값(high-water mark)을 기록한다.
+ */
+@Slf4j
+public class PersistenceContextGuard implements PostLoadEventListener, PersistEventListener, MergeEventListener,
+        FlushEventListener {
+
+    private static final String NO_ENDPOINT = "-";
+    private static final ThreadLocal<String> ENDPOINT = new ThreadLocal<>();
+
+    private final PersistenceContextGuardProperties properties;
+    private final Map<String, LongAccumulator> highWaterMarks = new ConcurrentHashMap<>();
+    private final LongAdder clearCount = new LongAdder();
+    private final LongAdder failCount = new LongAdder();
+
+    public PersistenceContextGuard(PersistenceContextGuardProperties properties) {
+        this.properties = properties;
+    }
+
+    public static void setEndpoint(String endpoint) {
+        ENDPOINT.set(endpoint);
+    }
+
+    public static void clearEndpoint() {
+        ENDPOINT.remove();
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        inspect(event.getSession());
+    }
+
+    @Override
+    public void onPersist(PersistEvent event) {
+        inspect(event.getSession());
+    }
+
+    @Override
+    public void onPersist(PersistEvent event, Map createdAlready) {
+        inspect(event.getSession());
+    }
+
+    @Override
+    public void onMerge(MergeEvent event) {
+        inspect(event.getSession());
+    }
+
+    @Override
+    public void onMerge(MergeEvent event, Map copiedAlready) {
+        inspect(event.getSession());
+    }
+
+    @Override
+    public void onFlush(FlushEvent event) {
+        inspect(event.getSession());
+    }
+
+    void inspect(SessionImplementor session) {
+        int managedEntities = session.getPersistenceContext().getNumberOfManagedEntities();
+        String endpoint = currentEndpoint();
+        highWaterMarks.computeIfAbsent(endpoint, key -> new LongAccumulator(Math::max, 0))
+                .accumulate(managedEntities);
+
+        int max = properties.getMaxManagedEntities();
+        if (managedEntities <= max) {
+            return;
+        }
+        if (properties.getMode() == PersistenceContextGuardProperties.Mode.FAIL) {
+            failCount.increment();
+            throw new PersistenceContextLimitExceededException(endpoint, managedEntities, max);
+        }
+        // 임계치를 처음 넘는 순간에만 남긴다.
+        if (managedEntities == max + 1) {
+            log.warn("persistence context of [{}] exceeded {} managed entities", endpoint, max);
+        }
+    }
+
+    /**
+     * 호출자가 안전하다고 표시한 시점(@PersistenceContextCheckpoint, 벌크 루프의 청크 경계 등)에만 호출한다.
+     * 임계치를 넘었다면 flush() 후 clear() 한다.
+     *
+     * @return clear 했다면 true
+     */
+    public boolean checkpoint(EntityManager em) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        int managedEntities = session.getPersistenceContext().getNumberOfManagedEntities();
+        if (managedEntities <= properties.getMaxManagedEntities()) {
+            return false;
+        }
+        log.warn("clearing persistence context of [{}] with {} managed entities", currentEndpoint(), managedEntities);
+        // 읽기 전용 세션은 변경 사항이 없으므로 flush 하지 않는다.
+        if (!em.unwrap(Session.class).isDefaultReadOnly()) {
+            em.flush();
+        }
+        em.clear();
+        clearCount.increment();
+        return true;
+    }
+
+    public Map<String, Long> getHighWaterMarks() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        highWaterMarks.forEach((endpoint, max) -> snapshot.put(endpoint, max.get()));
+        return snapshot;
+    }
+
+    public long getClearCount() {
+        return clearCount.sum();
+    }
+
+    public long getFailCount() {
+        return failCount.sum();
+    }
+
+    private String currentEndpoint() {
+        String endpoint = ENDPOINT.get();
+        return endpoint == null ? NO_ENDPOINT : endpoint;
+    }
+}
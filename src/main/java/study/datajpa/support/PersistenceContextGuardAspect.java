@@ -0,0 +1,32 @@
+package study.datajpa.support;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * @PersistenceContextCheckpoint 메서드 실행 직전에 PersistenceContextGuard.checkpoint() 를 실행한다.
+ */
+@Aspect
+@RequiredArgsConstructor
+public class PersistenceContextGuardAspect {
+
+    private final PersistenceContextGuard guard;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Before("@annotation(study.datajpa.support.PersistenceContextCheckpoint)")
+    public void checkpoint() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (em != null) {
+            guard.checkpoint(em);
+        }
+    }
+}
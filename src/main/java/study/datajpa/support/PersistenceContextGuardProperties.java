@@ -0,0 +1,26 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datajpa.persistence-context-guard")
+public class PersistenceContextGuardProperties {
+
+    public enum Mode {
+        /**
+         * 경고 로그만 남긴다.
+         */
+        WARN,
+        /**
+         * 임계치를 넘는 순간 예외를 던진다.
+         */
+        FAIL
+    }
+
+    private boolean enabled;
+    private int maxManagedEntities = 10_000;
+    private Mode mode = Mode.WARN;
+}
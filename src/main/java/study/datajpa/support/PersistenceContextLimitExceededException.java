@@ -0,0 +1,12 @@
+package study.datajpa.support;
+
+/**
+ * IllegalStateException 을 상속하면 스프링이 InvalidDataAccessApiUsageException 으로 변환하므로 RuntimeException 을 상속한다.
+ */
+public class PersistenceContextLimitExceededException extends RuntimeException {
+
+    public PersistenceContextLimitExceededException(String endpoint, int managedEntities, int maxManagedEntities) {
+        super("persistence context of [" + endpoint + "] holds " + managedEntities
+                + " managed entities (max " + maxManagedEntities + ")");
+    }
+}
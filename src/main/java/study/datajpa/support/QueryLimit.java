@@ -0,0 +1,29 @@
+package study.datajpa.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 리포지토리 메서드가 돌려줄 수 있는 최대 행 수 (MemberRepository, TeamRepository)
+ * <p>
+ * 리포지토리가 처음 만드는 쿼리에 setMaxResults(maxRows + 1) 을 걸고, 결과가 maxRows 를 넘으면 QueryLimitExceededException 을 던진다.
+ * 쿼리 타임아웃과 fetch size 는 스프링 데이터 JPA 가 지원하는 @QueryHints 로 같이 선언한다.
+ * <pre>
+ * &#64;QueryHints({
+ *         &#64;QueryHint(name = "javax.persistence.query.timeout", value = "3000"),
+ *         &#64;QueryHint(name = "org.hibernate.fetchSize", value = "500")})
+ * &#64;QueryLimit(maxRows = 1000)
+ * </pre>
+ * [주의점]
+ * 컬렉션 fetch join 은 Hibernate 가 전체를 읽은 뒤 메모리에서 자르므로 사용하지 말자. (HHH000104)
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryLimit {
+
+    int maxRows();
+}
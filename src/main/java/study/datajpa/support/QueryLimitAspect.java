@@ -0,0 +1,78 @@
+package study.datajpa.support;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+
+/**
+ * MemberRepository / TeamRepository 의 @QueryLimit 메서드에 행 수 제한을 걸고,
+ * 제한 초과와 쿼리 타임아웃을 QueryLimitExceededException 으로 바꿔 던진다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class QueryLimitAspect {
+
+    private final QueryLimitMetrics metrics;
+
+    @Around("execution(* study.datajpa.repository.MemberRepository.*(..)) || execution(* study.datajpa.repository.TeamRepository.*(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        QueryLimit queryLimit = AnnotationUtils.findAnnotation(method, QueryLimit.class);
+        if (queryLimit == null) {
+            return joinPoint.proceed();
+        }
+
+        String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        Integer previous = QueryLimitEntityManager.capNextQuery(queryLimit.maxRows() + 1);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (RuntimeException e) {
+            if (isTimeout(e)) {
+                metrics.recordTimeout(name);
+                throw new QueryLimitExceededException(name, "query timed out", e);
+            }
+            throw e;
+        } finally {
+            QueryLimitEntityManager.set(previous);
+        }
+
+        long rows = rows(result);
+        metrics.recordRows(name, rows);
+        if (rows > queryLimit.maxRows()) {
+            metrics.recordRowsExceeded(name);
+            throw new QueryLimitExceededException(name, "returned more than " + queryLimit.maxRows() + " rows", null);
+        }
+        return result;
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        return result == null ? 0 : 1;
+    }
+
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof javax.persistence.QueryTimeoutException
+                    || t instanceof org.hibernate.QueryTimeoutException
+                    || t instanceof org.springframework.dao.QueryTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
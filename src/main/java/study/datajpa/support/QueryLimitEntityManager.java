@@ -0,0 +1,59 @@
+package study.datajpa.support;
+
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.StoredProcedureQuery;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+
+/**
+ * QueryLimitAspect 가 걸어둔 행 수 제한을 그 다음에 만들어지는 쿼리 한 번에만 setMaxResults 로 적용한다.
+ * <p>
+ * SQL 을 직접 고치지 않으므로 limit 문법은 Dialect 가 정하고 원래 쿼리의 order by 도 그대로 유지된다.
+ * 리포지토리가 쓰는 EntityManager 만 감싸므로 (QueryLimitRepositoryPostProcessor)
+ * 이어서 나가는 지연 로딩 / batch fetch select 는 제한하지 않는다.
+ */
+public final class QueryLimitEntityManager {
+
+    private static final ThreadLocal<Integer> ROW_CAP = new ThreadLocal<>();
+
+    private QueryLimitEntityManager() {
+    }
+
+    static Integer capNextQuery(Integer rows) {
+        Integer previous = ROW_CAP.get();
+        set(rows);
+        return previous;
+    }
+
+    static void set(Integer rows) {
+        if (rows == null) {
+            ROW_CAP.remove();
+        } else {
+            ROW_CAP.set(rows);
+        }
+    }
+
+    public static EntityManager wrap(EntityManager target) {
+        return (EntityManager) Proxy.newProxyInstance(QueryLimitEntityManager.class.getClassLoader(),
+                ClassUtils.getAllInterfaces(target),
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                    if (result instanceof Query && !(result instanceof StoredProcedureQuery)) {
+                        Integer rows = ROW_CAP.get();
+                        if (rows != null) {
+                            ROW_CAP.remove();
+                            ((Query) result).setMaxResults(rows);
+                        }
+                    }
+                    return result;
+                });
+    }
+}
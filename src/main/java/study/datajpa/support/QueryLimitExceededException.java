@@ -0,0 +1,11 @@
+package study.datajpa.support;
+
+/**
+ * QueryLimit 을 넘은 리포지토리 호출. 스프링 예외 변환을 거치지 않도록 RuntimeException 을 상속한다.
+ */
+public class QueryLimitExceededException extends RuntimeException {
+
+    public QueryLimitExceededException(String method, String message, Throwable cause) {
+        super("[" + method + "] " + message, cause);
+    }
+}
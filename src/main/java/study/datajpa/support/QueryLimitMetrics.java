@@ -0,0 +1,58 @@
+package study.datajpa.support;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * QueryLimit 이 걸린 메서드별 호출 수, 제한 초과 수, 최대 결과 행 수
+ */
+@Component
+public class QueryLimitMetrics {
+
+    private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    void recordRows(String method, long rows) {
+        MethodMetrics metrics = metrics(method);
+        metrics.calls.incrementAndGet();
+        metrics.maxRows.accumulateAndGet(rows, Math::max);
+    }
+
+    void recordRowsExceeded(String method) {
+        metrics(method).rowsExceeded.incrementAndGet();
+    }
+
+    void recordTimeout(String method) {
+        MethodMetrics metrics = metrics(method);
+        metrics.calls.incrementAndGet();
+        metrics.timeouts.incrementAndGet();
+    }
+
+    public Map<String, Map<String, Long>> getMetrics() {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        methods.forEach((method, metrics) -> {
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("calls", metrics.calls.get());
+            values.put("maxRows", metrics.maxRows.get());
+            values.put("rowsExceeded", metrics.rowsExceeded.get());
+            values.put("timeouts", metrics.timeouts.get());
+            result.put(method, values);
+        });
+        return result;
+    }
+
+    private MethodMetrics metrics(String method) {
+        return methods.computeIfAbsent(method, key -> new MethodMetrics());
+    }
+
+    private static class MethodMetrics {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong maxRows = new AtomicLong();
+        private final AtomicLong rowsExceeded = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+    }
+}
@@ -0,0 +1,35 @@
+package study.datajpa.support;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 리포지토리가 만드는 쿼리에 @QueryLimit 의 행 수 제한을 걸 수 있도록 EntityManager 를 감싼다. (QueryLimitEntityManager)
+ * <p>
+ * 리포지토리 팩토리 빈은 스프링 부트 자동 설정(JpaRepositoriesAutoConfiguration)이 등록한 것을 그대로 쓰고,
+ * 팩토리를 만들기(afterPropertiesSet) 전에 주입된 EntityManager 만 바꾼다.
+ * [주의점]
+ * &#64;EnableJpaRepositories(repositoryFactoryBeanClass = ...) 로 바꾸면 자동 설정이 빠지면서
+ * spring.data.jpa.repositories.bootstrap-mode 와 EntityManagerFactory 백그라운드 생성도 같이 꺼진다.
+ */
+public class QueryLimitRepositoryPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public QueryLimitRepositoryPostProcessor(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof JpaRepositoryFactoryBean) {
+            ((JpaRepositoryFactoryBean<?, ?, ?>) bean).setEntityManager(QueryLimitEntityManager.wrap(
+                    SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory.getObject())));
+        }
+        return bean;
+    }
+}
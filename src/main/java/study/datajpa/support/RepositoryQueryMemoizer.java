@@ -0,0 +1,286 @@
+package study.datajpa.support;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.event.spi.ClearEvent;
+import org.hibernate.event.spi.ClearEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.Method;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 한 트랜잭션 안에서 같은 리포지토리 조회(메서드 + 인자)를 다시 호출하면 SQL 없이 처음 결과를 돌려준다.
+ * (MemberRepository, TeamRepository)
+ * <p>
+ * 1차 캐시는 식별자로 찾을 때만 쓰이므로 findByUsername 같은 쿼리 메서드는 같은 인자라도 매번 SQL 을 실행한다.
+ * 결과는 트랜잭션 리소스로 들고 있다가 트랜잭션이 끝나면 버린다.
+ * <p>
+ * [무효화]
+ * 1. flush 로 Member / Team 이 insert, update, delete 되면 그 타입에 의존하는 결과를 버린다.
+ * 2. 캐시된 결과를 돌려주기 전에 flush 되지 않은 변경이 있으면 먼저 flush 한다. (쿼리 전 자동 flush 와 같은 동작)
+ * 3. clear() 나 벌크 연산(@Modifying, MemberBulkUpdateListener)이 일어나면 모두 버린다.
+ * <p>
+ * 인자가 값 타입(문자열, 숫자, 날짜, Pageable, Sort, 그 컬렉션)이 아니거나 @Lock 이 걸린 메서드는 캐시하지 않는다.
+ */
+@Aspect
+public class RepositoryQueryMemoizer implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, ClearEventListener, MemberBulkUpdateListener {
+
+    private static final Object NULL = new Object();
+    // 팀 쿼리도 회원을 조인하고, 회원 쿼리도 팀을 조인하므로 둘 중 하나만 바뀌어도 버린다.
+    private static final Set<Class<?>> DEPENDS_ON = Set.of(Member.class, Team.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public RepositoryQueryMemoizer(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Around("execution(* study.datajpa.repository.MemberRepository.*(..)) || execution(* study.datajpa.repository.TeamRepository.*(..))")
+    public Object memoize(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object[] args = joinPoint.getArgs();
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        if (method.isAnnotationPresent(Modifying.class)) {
+            Object result = joinPoint.proceed();
+            invalidateAll();
+            return result;
+        }
+        if (!isQuery(method) || !isValue(args)) {
+            return joinPoint.proceed();
+        }
+
+        Map<Key, Entry> cache = cache();
+        Key key = new Key(method, args);
+        if (cache.containsKey(key)) {
+            flushPendingChanges();
+            Entry entry = cache.get(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                return copy(entry.result);
+            }
+        }
+
+        misses.incrementAndGet();
+        Object result = joinPoint.proceed();
+        cache.put(key, new Entry(result == null ? NULL : result, DEPENDS_ON));
+        return copy(result);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        invalidate(event.getPersister());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        invalidate(event.getPersister());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        invalidate(event.getPersister());
+    }
+
+    @Override
+    public void onClear(ClearEvent event) {
+        invalidateAll();
+    }
+
+    /**
+     * MemberJpaRepository.bulkAgePlus 처럼 aspect 를 거치지 않는 벌크 연산
+     */
+    @Override
+    public void onBulkUpdate(Session session, String method, Object[] args, Object rows, Set<Long> ids) {
+        invalidateAll();
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void invalidate(EntityPersister persister) {
+        Map<Key, Entry> cache = currentCache();
+        if (cache != null) {
+            Class<?> type = persister.getMappedClass();
+            cache.values().removeIf(entry -> entry.dependsOn.stream().anyMatch(dependency -> dependency.isAssignableFrom(type)));
+        }
+    }
+
+    private void invalidateAll() {
+        Map<Key, Entry> cache = currentCache();
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * 쿼리 실행 전 자동 flush 를 대신한다. flush 되는 변경은 이벤트로 캐시를 무효화한다.
+     */
+    private void flushPendingChanges() {
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (em == null) {
+            return;
+        }
+        Session session = em.unwrap(Session.class);
+        if (session.getHibernateFlushMode() == FlushMode.AUTO && session.isDirty()) {
+            session.flush();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Key, Entry> currentCache() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        return (Map<Key, Entry>) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private Map<Key, Entry> cache() {
+        Map<Key, Entry> cache = currentCache();
+        if (cache != null) {
+            return cache;
+        }
+        Map<Key, Entry> created = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResourceIfPossible(RepositoryQueryMemoizer.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(RepositoryQueryMemoizer.this, created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(RepositoryQueryMemoizer.this);
+            }
+        });
+        return created;
+    }
+
+    private static boolean isQuery(Method method) {
+        String name = method.getName();
+        return (name.startsWith("find") || name.startsWith("read") || name.startsWith("get")
+                || name.startsWith("query") || name.startsWith("count") || name.startsWith("exists"))
+                && !method.isAnnotationPresent(Lock.class)
+                && !Stream.class.isAssignableFrom(method.getReturnType());
+    }
+
+    private static boolean isValue(Object[] args) {
+        for (Object arg : args) {
+            if (!isValue(arg)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValue(Object arg) {
+        if (arg == null || arg instanceof String || arg instanceof Number || arg instanceof Boolean
+                || arg instanceof Enum || arg instanceof Temporal || arg instanceof Pageable || arg instanceof Sort) {
+            return true;
+        }
+        if (arg instanceof Collection) {
+            return ((Collection<?>) arg).stream().allMatch(RepositoryQueryMemoizer::isValue);
+        }
+        return false;
+    }
+
+    /**
+     * 호출하는 쪽에서 리스트를 바꿔도 캐시된 결과는 그대로 두도록 복사해서 돌려준다.
+     */
+    private static Object copy(Object result) {
+        if (result == NULL) {
+            return null;
+        }
+        if (result instanceof List) {
+            return new ArrayList<>((List<?>) result);
+        }
+        return result;
+    }
+
+    private static class Key {
+        private final Method method;
+        private final List<Object> args;
+
+        Key(Method method, Object[] args) {
+            this.method = method;
+            this.args = Arrays.asList(args.clone());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return method.equals(key.method) && args.equals(key.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * method.hashCode() + args.hashCode();
+        }
+    }
+
+    private static class Entry {
+        private final Object result;
+        private final Set<Class<?>> dependsOn;
+
+        Entry(Object result, Set<Class<?>> dependsOn) {
+            this.result = result;
+            this.dependsOn = dependsOn;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package study.datajpa.support;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+/**
+ * Member 의 insert / delete / 팀 변경(changeTeam) / 나이 변경을 team_stats 에 반영한다.
+ */
+@RequiredArgsConstructor
+public class TeamStatsEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final TeamStatsUpdater teamStatsUpdater;
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Team) {
+            teamStatsUpdater.createTeam(event.getSession(), (Long) event.getId());
+        } else if (event.getEntity() instanceof Member) {
+            EntityPersister persister = event.getPersister();
+            Object[] state = event.getState();
+            teamStatsUpdater.adjust(event.getSession(), teamId(persister, state), 1, age(persister, state));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Object[] oldState = event.getOldState();
+        // 이전 상태를 모르면 증분 계산을 할 수 없으므로 전체를 다시 계산한다.
+        if (oldState == null) {
+            teamStatsUpdater.recomputeAll(event.getSession());
+            return;
+        }
+
+        Long oldTeamId = teamId(persister, oldState);
+        Long newTeamId = teamId(persister, event.getState());
+        int oldAge = age(persister, oldState);
+        int newAge = age(persister, event.getState());
+
+        if (oldTeamId == null ? newTeamId == null : oldTeamId.equals(newTeamId)) {
+            teamStatsUpdater.adjust(event.getSession(), newTeamId, 0, newAge - oldAge);
+        } else {
+            teamStatsUpdater.adjust(event.getSession(), oldTeamId, -1, -oldAge);
+            teamStatsUpdater.adjust(event.getSession(), newTeamId, 1, newAge);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Team) {
+            teamStatsUpdater.deleteTeam(event.getSession(), (Long) event.getId());
+        } else if (event.getEntity() instanceof Member) {
+            EntityPersister persister = event.getPersister();
+            Object[] state = event.getDeletedState();
+            teamStatsUpdater.adjust(event.getSession(), teamId(persister, state), -1, -age(persister, state));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private Long teamId(EntityPersister persister, Object[] state) {
+        Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+        return team == null ? null : ((Team) team).getId();
+    }
+
+    private int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+    }
+}
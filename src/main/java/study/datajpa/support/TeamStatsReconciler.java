@@ -0,0 +1,95 @@
+package study.datajpa.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.TeamStats;
+
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * team_stats 를 Member 테이블 기준으로 다시 만든다.
+ * <p>
+ * 팀을 team_id 순으로 chunkSize 만큼 나눠 청크마다 별도의 트랜잭션으로 처리하므로
+ * 한 번에 전체 Member 를 group by 하지 않는다.
+ * 스케줄러는 테넌트를 하나씩 돌며 각 테넌트 스키마의 team_stats 를 다시 만든다.
+ */
+@Slf4j
+public class TeamStatsReconciler {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final TenantScope tenantScope;
+
+    public TeamStatsReconciler(EntityManager em, PlatformTransactionManager transactionManager, int chunkSize,
+                               TenantScope tenantScope) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.tenantScope = tenantScope;
+    }
+
+    @Scheduled(cron = "${datajpa.team-stats.reconcile-cron:-}")
+    public void reconcileScheduled() {
+        for (String tenant : tenantScope.tenants()) {
+            try {
+                log.info("team stats reconciled for tenant {}: {} teams", tenant, tenantScope.callAs(tenant, this::reconcile));
+            } catch (RuntimeException e) {
+                log.warn("team stats reconcile failed for tenant {}", tenant, e);
+            }
+        }
+    }
+
+    /**
+     * 현재 테넌트의 team_stats 를 다시 만든다.
+     *
+     * @return 다시 계산한 팀 수
+     */
+    public int reconcile() {
+        int reconciled = 0;
+        Long lastTeamId = 0L;
+        while (true) {
+            Long from = lastTeamId;
+            List<Long> teamIds = transactionTemplate.execute(status -> reconcileChunk(from));
+            if (teamIds == null || teamIds.isEmpty()) {
+                return reconciled;
+            }
+            reconciled += teamIds.size();
+            lastTeamId = teamIds.get(teamIds.size() - 1);
+        }
+    }
+
+    private List<Long> reconcileChunk(Long lastTeamId) {
+        List<Long> teamIds = em.createQuery("select t.id from Team t where t.id > :lastTeamId order by t.id", Long.class)
+                .setParameter("lastTeamId", lastTeamId)
+                .setMaxResults(chunkSize)
+                .getResultList();
+        if (teamIds.isEmpty()) {
+            return teamIds;
+        }
+
+        Map<Long, Object[]> aggregates = new HashMap<>();
+        em.createQuery("select m.team.id, count(m), coalesce(sum(m.age), 0) from Member m where m.team.id in :teamIds group by m.team.id", Object[].class)
+                .setParameter("teamIds", teamIds)
+                .getResultList()
+                .forEach(row -> aggregates.put((Long) row[0], row));
+
+        for (Long teamId : teamIds) {
+            Object[] row = aggregates.get(teamId);
+            TeamStats stats = em.find(TeamStats.class, teamId);
+            if (stats == null) {
+                stats = new TeamStats(teamId);
+                em.persist(stats);
+            }
+            stats.reset(row == null ? 0 : (Long) row[1], row == null ? 0 : ((Number) row[2]).longValue());
+        }
+        em.flush();
+        em.clear();
+        return teamIds;
+    }
+}
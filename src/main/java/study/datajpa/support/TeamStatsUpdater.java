@@ -0,0 +1,107 @@
+package study.datajpa.support;
+
+import org.hibernate.Session;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * team_stats 를 현재 세션의 커넥션으로 증분 갱신한다.
+ * <p>
+ * 엔티티 이벤트(flush 도중)에서 호출되므로 JPA 가 아닌 JDBC 로 갱신한다.
+ * 기능을 켜기 전에 만들어진 팀처럼 행이 없으면 해당 팀만 다시 계산한다.
+ */
+public class TeamStatsUpdater implements MemberBulkUpdateListener {
+
+    private static final String ADJUST_SQL = "update team_stats set member_count = member_count + ?, age_sum = age_sum + ? where team_id = ?";
+    private static final String DELETE_SQL = "delete from team_stats where team_id = ?";
+    // delete 후 insert 로 나누면 같은 팀을 동시에 다시 계산할 때 키가 겹치므로 한 문장으로 덮어쓴다.
+    private static final String RECOMPUTE_SQL = "merge into team_stats (team_id, member_count, age_sum) key (team_id) "
+            + "select ?, count(*), coalesce(sum(age), 0) from member where team_id = ?";
+
+    // bulkAgePlus(age) 이후에는 age + 1 이상인 회원이 정확히 변경된 회원이다.
+    private static final String BULK_AGE_PLUS_SQL = "update team_stats set age_sum = age_sum + "
+            + "(select count(*) from member m where m.team_id = team_stats.team_id and m.age >= ?)";
+    private static final String RECOMPUTE_ALL_SQL = "update team_stats set "
+            + "member_count = (select count(*) from member m where m.team_id = team_stats.team_id), "
+            + "age_sum = (select coalesce(sum(m.age), 0) from member m where m.team_id = team_stats.team_id)";
+
+    public void createTeam(Session session, Long teamId) {
+        session.doWork(connection -> recompute(connection, teamId));
+    }
+
+    public void deleteTeam(Session session, Long teamId) {
+        session.doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(DELETE_SQL)) {
+                ps.setLong(1, teamId);
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    public void adjust(Session session, Long teamId, long memberCountDelta, long ageSumDelta) {
+        if (teamId == null || (memberCountDelta == 0 && ageSumDelta == 0)) {
+            return;
+        }
+        session.doWork(connection -> {
+            int updated;
+            try (PreparedStatement ps = connection.prepareStatement(ADJUST_SQL)) {
+                ps.setLong(1, memberCountDelta);
+                ps.setLong(2, ageSumDelta);
+                ps.setLong(3, teamId);
+                updated = ps.executeUpdate();
+            }
+            if (updated == 0) {
+                recompute(connection, teamId);
+            }
+        });
+    }
+
+    /**
+     * bulkAgePlus 는 증분으로, 변경 내용을 알 수 없는 나머지 벌크 연산은 전체를 다시 계산한다.
+     * purgeTeams 는 삭제된 팀의 행만 지운다. (다른 팀의 회원은 바뀌지 않는다)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onBulkUpdate(Session session, String method, Object[] args, Object rows, Set<Long> ids) {
+        if (method.equals("bulkAgePlus")) {
+            bulkAgePlus(session, (Integer) args[0]);
+        } else if (method.equals("purgeTeams")) {
+            ((Collection<Long>) args[0]).forEach(teamId -> deleteTeam(session, teamId));
+        } else {
+            recomputeAll(session);
+        }
+    }
+
+    public void bulkAgePlus(Session session, int age) {
+        session.doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(BULK_AGE_PLUS_SQL)) {
+                ps.setInt(1, age + 1);
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * 변경 내용을 알 수 없는 벌크 연산 이후에 모든 팀을 다시 계산한다.
+     */
+    public void recomputeAll(Session session) {
+        session.doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate(RECOMPUTE_ALL_SQL);
+            }
+        });
+    }
+
+    private void recompute(Connection connection, Long teamId) throws SQLException {
+        try (PreparedStatement merge = connection.prepareStatement(RECOMPUTE_SQL)) {
+            merge.setLong(1, teamId);
+            merge.setLong(2, teamId);
+            merge.executeUpdate();
+        }
+    }
+}
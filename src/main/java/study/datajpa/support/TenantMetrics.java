@@ -0,0 +1,68 @@
+package study.datajpa.support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 테넌트별 커넥션 사용량과 리포지토리 쿼리 수 / 시간
+ */
+public class TenantMetrics {
+
+    private final Map<String, Metrics> tenants = new ConcurrentHashMap<>();
+
+    public void recordConnection(String tenant, long waitNanos) {
+        Metrics metrics = metrics(tenant);
+        metrics.connections.incrementAndGet();
+        metrics.connectionWaitNanos.addAndGet(waitNanos);
+        metrics.maxConnectionWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    public void recordRejected(String tenant) {
+        metrics(tenant).rejected.incrementAndGet();
+    }
+
+    public void recordQuery(String tenant, long elapsedNanos, boolean failed) {
+        Metrics metrics = metrics(tenant);
+        metrics.queries.incrementAndGet();
+        metrics.queryNanos.addAndGet(elapsedNanos);
+        metrics.maxQueryNanos.accumulateAndGet(elapsedNanos, Math::max);
+        if (failed) {
+            metrics.failedQueries.incrementAndGet();
+        }
+    }
+
+    public Map<String, Map<String, Long>> getMetrics() {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        tenants.forEach((tenant, metrics) -> {
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("connections", metrics.connections.get());
+            values.put("connectionWaitMillis", metrics.connectionWaitNanos.get() / 1_000_000);
+            values.put("maxConnectionWaitMillis", metrics.maxConnectionWaitNanos.get() / 1_000_000);
+            values.put("rejected", metrics.rejected.get());
+            values.put("queries", metrics.queries.get());
+            values.put("queryMillis", metrics.queryNanos.get() / 1_000_000);
+            values.put("maxQueryMillis", metrics.maxQueryNanos.get() / 1_000_000);
+            values.put("failedQueries", metrics.failedQueries.get());
+            result.put(tenant, values);
+        });
+        return result;
+    }
+
+    private Metrics metrics(String tenant) {
+        return tenants.computeIfAbsent(tenant, key -> new Metrics());
+    }
+
+    private static class Metrics {
+        private final AtomicLong connections = new AtomicLong();
+        private final AtomicLong connectionWaitNanos = new AtomicLong();
+        private final AtomicLong maxConnectionWaitNanos = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong queries = new AtomicLong();
+        private final AtomicLong queryNanos = new AtomicLong();
+        private final AtomicLong maxQueryNanos = new AtomicLong();
+        private final AtomicLong failedQueries = new AtomicLong();
+    }
+}
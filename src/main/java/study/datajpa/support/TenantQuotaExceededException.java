@@ -0,0 +1,11 @@
+package study.datajpa.support;
+
+/**
+ * 테넌트의 커넥션 할당량을 기다리다 시간이 초과된 경우
+ */
+public class TenantQuotaExceededException extends RuntimeException {
+
+    public TenantQuotaExceededException(String tenant, int maxConnections, long waitedMillis) {
+        super("tenant " + tenant + " is using all of its " + maxConnections + " connections (waited " + waitedMillis + "ms)");
+    }
+}
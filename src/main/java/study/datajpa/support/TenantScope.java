@@ -0,0 +1,45 @@
+package study.datajpa.support;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 요청 스레드 밖에서 실행되는 작업(write-behind, 스케줄러)이 테넌트를 지정해서 실행할 때 쓴다.
+ * <p>
+ * 멀티 테넌시가 켜져 있으면 TenantContext 를 사용하고 (TenancyConfig), 꺼져 있으면 SINGLE 을 쓴다.
+ */
+public interface TenantScope {
+
+    /**
+     * 멀티 테넌시가 꺼져 있을 때. 테넌트는 null 하나뿐이다.
+     */
+    TenantScope SINGLE = new TenantScope() {
+        @Override
+        public String current() {
+            return null;
+        }
+
+        @Override
+        public List<String> tenants() {
+            return Collections.singletonList(null);
+        }
+
+        @Override
+        public <T> T callAs(String tenant, Supplier<T> action) {
+            return action.get();
+        }
+    };
+
+    /**
+     * @return 현재 스레드의 테넌트. 지정하지 않았으면 null
+     */
+    String current();
+
+    /**
+     * @return 기본 테넌트를 포함한 모든 테넌트
+     */
+    List<String> tenants();
+
+    <T> T callAs(String tenant, Supplier<T> action);
+}
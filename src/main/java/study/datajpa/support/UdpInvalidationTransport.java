@@ -0,0 +1,77 @@
+package study.datajpa.support;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * UDP 로 모든 peer 에 메시지를 보낸다.
+ * <p>
+ * 락이나 브로커 없이 보내고 잊는다. 유실되거나 순서가 바뀐 메시지는 CacheInvalidationBus 가 순번으로 알아챈다.
+ */
+@Slf4j
+public class UdpInvalidationTransport implements InvalidationTransport {
+
+    private static final int MAX_DATAGRAM = 65_507;
+
+    private final DatagramSocket socket;
+    private final List<InetSocketAddress> peers;
+
+    public UdpInvalidationTransport(int bindPort, List<InetSocketAddress> peers) {
+        try {
+            this.socket = new DatagramSocket(bindPort);
+        } catch (SocketException e) {
+            throw new IllegalStateException("failed to bind cache invalidation port " + bindPort, e);
+        }
+        this.peers = List.copyOf(peers);
+    }
+
+    @Override
+    public void send(byte[] message) {
+        if (message.length > MAX_DATAGRAM) {
+            throw new IllegalArgumentException("invalidation message is too large: " + message.length + " bytes");
+        }
+        for (InetSocketAddress peer : peers) {
+            try {
+                socket.send(new DatagramPacket(message, message.length, peer));
+            } catch (IOException e) {
+                // 받는 쪽이 다음 heartbeat 에서 유실을 알아챈다.
+                log.warn("failed to send cache invalidation to {}: {}", peer, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<byte[]> receiver) {
+        Thread thread = new Thread(() -> {
+            byte[] buffer = new byte[MAX_DATAGRAM];
+            while (!socket.isClosed()) {
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                try {
+                    socket.receive(packet);
+                    receiver.accept(Arrays.copyOf(packet.getData(), packet.getLength()));
+                } catch (IOException e) {
+                    if (!socket.isClosed()) {
+                        log.warn("failed to receive cache invalidation: {}", e.getMessage());
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("failed to apply cache invalidation", e);
+                }
+            }
+        }, "cache-invalidation-receiver");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+}
@@ -0,0 +1,37 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 운영 프로파일에서는 리포지토리 초기화를 미루고 EntityManagerFactory 를 백그라운드에서 만든다.
+ */
+@SpringBootTest
+@ActiveProfiles("prod")
+class ProdProfileBootstrapTest {
+
+    @Autowired
+    ConfigurableListableBeanFactory beanFactory;
+
+    @Test
+    public void deferRepositoryBootstrap() throws Exception {
+        //given
+        AbstractEntityManagerFactoryBean entityManagerFactory =
+                beanFactory.getBean("&entityManagerFactory", AbstractEntityManagerFactoryBean.class);
+
+        //when
+        boolean lazyMemberRepository = beanFactory.getBeanDefinition("memberRepository").isLazyInit();
+        boolean lazyTeamRepository = beanFactory.getBeanDefinition("teamRepository").isLazyInit();
+
+        //then
+        assertThat(entityManagerFactory.getBootstrapExecutor()).isNotNull();
+        assertThat(lazyMemberRepository).isTrue();
+        assertThat(lazyTeamRepository).isTrue();
+    }
+}
@@ -0,0 +1,96 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 두 개의 임베디드 H2 인스턴스로 primary / replica 라우팅을 검증한다.
+ */
+class ReplicationRoutingDataSourceTest {
+
+    private DataSource h2(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists route (name varchar(20))");
+        jdbcTemplate.execute("delete from route");
+        jdbcTemplate.update("insert into route values (?)", name);
+        return dataSource;
+    }
+
+    private String currentRoute(DataSource routing, boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(routing));
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> new JdbcTemplate(routing).queryForObject("select name from route", String.class));
+    }
+
+    private DataSource routing(DataSource primary, DataSource replica, long lagToleranceMillis) {
+        ReplicationRoutingDataSource routingDataSource = new ReplicationRoutingDataSource(primary, replica, lagToleranceMillis, 60_000);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Test
+    public void readOnlyGoesToReplica() throws Exception {
+        //given
+        DataSource routing = routing(h2("primary"), h2("replica"), 0);
+
+        // when
+        String write = currentRoute(routing, false);
+        String read = currentRoute(routing, true);
+
+        // then
+        assertThat(write).isEqualTo("primary");
+        assertThat(read).isEqualTo("replica");
+    }
+
+    @Test
+    public void readAfterWriteGoesToPrimaryWithinLagTolerance() throws Exception {
+        //given
+        DataSource routing = routing(h2("primary"), h2("replica"), 60_000);
+
+        // when
+        String beforeWrite = currentRoute(routing, true);
+        currentRoute(routing, false);
+        String afterWrite = currentRoute(routing, true);
+
+        // then
+        assertThat(beforeWrite).isEqualTo("replica");
+        assertThat(afterWrite).isEqualTo("primary");
+    }
+
+    @Test
+    public void readAfterWriteIsScopedToWritingClient() throws Exception {
+        //given
+        DataSource routing = routing(h2("primary"), h2("replica"), 60_000);
+
+        // when
+        ReadYourWritesContext.callAs("writer", () -> currentRoute(routing, false));
+        String writerRead = ReadYourWritesContext.callAs("writer", () -> currentRoute(routing, true));
+        String otherRead = ReadYourWritesContext.callAs("other", () -> currentRoute(routing, true));
+
+        // then 다른 클라이언트의 쓰기는 replica 사용을 막지 않는다.
+        assertThat(writerRead).isEqualTo("primary");
+        assertThat(otherRead).isEqualTo("replica");
+    }
+
+    @Test
+    public void fallbackToPrimaryWhenReplicaIsDown() throws Exception {
+        //given
+        DataSource brokenReplica = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/~/none", "sa", "");
+        DataSource routing = routing(h2("primary"), brokenReplica, 0);
+
+        // when
+        String read = currentRoute(routing, true);
+
+        // then
+        assertThat(read).isEqualTo("primary");
+    }
+}
@@ -0,0 +1,77 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 여러 개의 인메모리 H2 로 샤드 라우팅을 검증한다.
+ */
+class ShardRoutingDataSourceTest {
+
+    private DataSource h2(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists route (name varchar(20))");
+        jdbcTemplate.execute("delete from route");
+        jdbcTemplate.update("insert into route values (?)", name);
+        return dataSource;
+    }
+
+    @Test
+    public void routeByShardContext() throws Exception {
+        //given
+        List<DataSource> shards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            shards.add(h2("shard" + i));
+        }
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource(shards);
+        dataSource.afterPropertiesSet();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // when
+        String defaultShard = jdbcTemplate.queryForObject("select name from route", String.class);
+        String shard2 = ShardContext.callOn(2, () -> jdbcTemplate.queryForObject("select name from route", String.class));
+
+        // then
+        assertThat(defaultShard).isEqualTo("shard0");
+        assertThat(shard2).isEqualTo("shard2");
+        assertThat(ShardContext.current()).isNull();
+    }
+
+    @Test
+    public void failWithoutShardAfterStartup() throws Exception {
+        //given
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource(List.of(h2("shard0"), h2("shard1")));
+        dataSource.afterPropertiesSet();
+        dataSource.afterSingletonsInstantiated();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // when, then
+        assertThatThrownBy(() -> jdbcTemplate.queryForObject("select name from route", String.class))
+                .hasStackTraceContaining("no shard is selected");
+        assertThat(ShardContext.callOn(1, () -> jdbcTemplate.queryForObject("select name from route", String.class)))
+                .isEqualTo("shard1");
+    }
+
+    @Test
+    public void teamIdDecidesShard() throws Exception {
+        //given
+        ShardRouter shardRouter = new ShardRouter(3);
+
+        // when, then
+        assertThat(shardRouter.shardOf(null)).isEqualTo(0);
+        assertThat(shardRouter.shardOf(3L)).isEqualTo(0);
+        assertThat(shardRouter.shardOf(4L)).isEqualTo(1);
+        assertThat(shardRouter.shardOf(8L)).isEqualTo(2);
+        assertThat(shardRouter.nextShardForNewTeam()).isEqualTo(0);
+        assertThat(shardRouter.nextShardForNewTeam()).isEqualTo(1);
+    }
+}
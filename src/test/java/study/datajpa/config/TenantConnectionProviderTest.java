@@ -0,0 +1,91 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.support.TenantMetrics;
+import study.datajpa.support.TenantQuotaExceededException;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "datajpa.tenancy.enabled=true",
+        "datajpa.tenancy.initialize-schema=true",
+        "datajpa.tenancy.acquire-timeout-millis=200",
+        "datajpa.tenancy.tenants[0].id=acme",
+        "datajpa.tenancy.tenants[0].schema=TENANT_ACME",
+        "datajpa.tenancy.tenants[0].max-connections=1",
+        "datajpa.tenancy.tenants[1].id=globex",
+        "datajpa.tenancy.tenants[1].schema=TENANT_GLOBEX"
+})
+class TenantConnectionProviderTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    TenantMetrics tenantMetrics;
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void schemaPerTenant() throws Exception {
+        //given
+        TenantContext.callAs("acme", () -> transactionTemplate.execute(status -> {
+            em.persist(new Member("tenantMember", 10));
+            return null;
+        }));
+
+        //when
+        int inAcme = TenantContext.callAs("acme", () -> memberRepository.findByUsername("tenantMember").size());
+        int inGlobex = TenantContext.callAs("globex", () -> memberRepository.findByUsername("tenantMember").size());
+        int inDefault = memberRepository.findByUsername("tenantMember").size();
+
+        //then
+        assertThat(inAcme).isEqualTo(1);
+        assertThat(inGlobex).isZero();
+        assertThat(inDefault).isZero();
+        assertThat(tenantMetrics.getMetrics().get("acme").get("queries")).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void connectionQuota() throws Exception {
+        //given acme 가 할당량(1개)을 다 쓰고 있다.
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> heavy = CompletableFuture.runAsync(() -> TenantContext.callAs("acme", () ->
+                transactionTemplate.execute(status -> {
+                    memberRepository.count();
+                    holding.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                })));
+        assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            //then acme 의 다음 요청은 기다리다 거절되고, globex 는 영향이 없다.
+            assertThatThrownBy(() -> TenantContext.callAs("acme", () -> transactionTemplate.execute(status -> memberRepository.count())))
+                    .hasRootCauseInstanceOf(TenantQuotaExceededException.class);
+            assertThat(TenantContext.callAs("globex", () -> transactionTemplate.execute(status -> memberRepository.count())))
+                    .isNotNull();
+            assertThat(tenantMetrics.getMetrics().get("acme").get("rejected")).isGreaterThanOrEqualTo(1);
+        } finally {
+            release.countDown();
+            heavy.get(5, TimeUnit.SECONDS);
+        }
+    }
+}
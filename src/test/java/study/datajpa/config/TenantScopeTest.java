@@ -0,0 +1,50 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.support.MemberWriteCoalescer;
+import study.datajpa.support.TenantScope;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 요청 스레드 밖에서 실행되는 작업도 변경을 요청한 테넌트의 스키마에 반영한다.
+ */
+@SpringBootTest(properties = {
+        "datajpa.tenancy.enabled=true",
+        "datajpa.tenancy.initialize-schema=true",
+        "datajpa.tenancy.tenants[0].id=acme",
+        "datajpa.tenancy.tenants[0].schema=TENANT_ACME",
+        "datajpa.write-coalescing.enabled=true",
+        "datajpa.write-coalescing.max-delay-millis=60000"
+})
+class TenantScopeTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberWriteCoalescer memberWriteCoalescer;
+    @Autowired
+    TenantScope tenantScope;
+
+    @Test
+    public void flushIntoRequestingTenant() throws Exception {
+        //given
+        Member inAcme = TenantContext.callAs("acme", () -> memberRepository.save(new Member("scopeMember", 10)));
+        Member inDefault = memberRepository.save(new Member("scopeMember", 10));
+        TenantContext.callAs("acme", () -> memberWriteCoalescer.changeAge(inAcme.getId(), 30));
+        memberWriteCoalescer.changeAge(inDefault.getId(), 20);
+
+        //when
+        int flushed = memberWriteCoalescer.flush();
+
+        //then
+        assertThat(flushed).isEqualTo(2);
+        assertThat(TenantContext.callAs("acme", () -> memberRepository.findById(inAcme.getId()).get().getAge())).isEqualTo(30);
+        assertThat(memberRepository.findById(inDefault.getId()).get().getAge()).isEqualTo(20);
+        assertThat(tenantScope.tenants()).containsExactly(TenantConnectionProvider.DEFAULT_TENANT, "acme");
+    }
+}
@@ -1,5 +1,7 @@
 package study.datajpa.entity;
 
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -10,8 +12,10 @@ import study.datajpa.repository.MemberRepository;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import java.sql.PreparedStatement;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -81,4 +85,56 @@ class MemberTest {
         System.out.println(findMember.getUpdatedBy());
     }
 
-}
\ No newline at end of file
+    /**
+     * 바이트코드 향상(build.gradle hibernate.enhance)이 적용되면
+     * 엔티티가 변경된 필드를 직접 기록하므로 flush 시 스냅샷 비교가 필요 없다.
+     */
+    @Test
+    @Rollback
+    public void dirtyTracking() throws Exception {
+        //given
+        Member member = memberRepository.save(new Member("memberA", 10));
+        em.flush();
+        em.clear();
+
+        // when
+        Member findMember = memberRepository.findById(member.getId()).get();
+        findMember.changeUsername("memberB");
+
+        // then
+        assertThat(findMember).isInstanceOf(SelfDirtinessTracker.class);
+        assertThat(((SelfDirtinessTracker) findMember).$$_hibernate_getDirtyAttributes()).containsExactly("username");
+    }
+
+    /**
+     * 바뀐 컬럼만 update 한다. (바이트코드 향상 + @DynamicUpdate)
+     * 영속성 컨택스트 밖에서 바뀐 age 를 flush 가 덮어쓰지 않는 것으로 확인한다.
+     */
+    @Test
+    @Rollback
+    public void updateOnlyDirtyColumns() throws Exception {
+        //given
+        Member member = new Member("dirtyCheck", 10);
+        em.persist(member);
+        em.flush();
+        em.clear();
+
+        Member findMember = em.find(Member.class, member.getId());
+        findMember.changeUsername("dirtyChecked");
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("update member set age = 99 where member_id = ?")) {
+                ps.setLong(1, member.getId());
+                ps.executeUpdate();
+            }
+        });
+
+        // when
+        em.flush();
+        em.clear();
+
+        // then
+        Member result = em.find(Member.class, member.getId());
+        assertThat(result.getUsername()).isEqualTo("dirtyChecked");
+        assertThat(result.getAge()).isEqualTo(99);
+    }
+}
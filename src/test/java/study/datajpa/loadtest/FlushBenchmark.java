@@ -0,0 +1,116 @@
+package study.datajpa.loadtest;
+
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 관리 중인 회원이 많고 그중 일부만 바뀐 영속성 컨택스트의 flush 시간을 잰다.
+ * <p>
+ * 바이트코드 향상(enableDirtyTracking)이 켜져 있으면 바뀐 엔티티만 확인하고,
+ * 꺼져 있으면 관리 중인 모든 엔티티를 스냅샷과 비교한다. 두 빌드의 결과를 비교한다.
+ * <p>
+ * ex) ./gradlew flushBenchmark --args='--members=20000 --dirty=20 --rounds=200'
+ *     ./gradlew flushBenchmark -Pdatajpa.enhance=false --args='--members=20000 --dirty=20 --rounds=200'
+ */
+public class FlushBenchmark {
+
+    private final int members;
+    private final int dirty;
+    private final int rounds;
+    private final int warmup;
+    private final long seed;
+
+    FlushBenchmark(Map<String, String> options) {
+        this.members = Integer.parseInt(options.getOrDefault("members", "20000"));
+        this.dirty = Integer.parseInt(options.getOrDefault("dirty", "20"));
+        this.rounds = Integer.parseInt(options.getOrDefault("rounds", "200"));
+        this.warmup = Integer.parseInt(options.getOrDefault("warmup", "50"));
+        this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --key=value but was " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:flush-benchmark;DB_CLOSE_DELAY=-1",
+                        "decorator.datasource.p6spy.enable-logging=false",
+                        "logging.level.org.hibernate.SQL=warn")
+                .run()) {
+            new FlushBenchmark(options).run(context.getBean(EntityManagerFactory.class));
+        }
+    }
+
+    void run(EntityManagerFactory entityManagerFactory) {
+        boolean enhanced = SelfDirtinessTracker.class.isAssignableFrom(Member.class);
+        System.out.printf("flush benchmark: dirty tracking %s, %d members, %d dirty per flush, %d rounds (+%d warmup)%n",
+                enhanced ? "on" : "off", members, dirty, rounds, warmup);
+
+        insertMembers(entityManagerFactory);
+
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            List<Member> managed = em.createQuery("select m from Member m", Member.class).getResultList();
+            SplittableRandom random = new SplittableRandom(seed);
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (int round = 0; round < warmup + rounds; round++) {
+                for (int i = 0; i < dirty; i++) {
+                    Member member = managed.get(random.nextInt(managed.size()));
+                    member.changeAge(member.getAge() + 1);
+                }
+                long started = System.nanoTime();
+                em.flush();
+                long micros = (System.nanoTime() - started) / 1_000;
+                if (round >= warmup) {
+                    histogram.record(micros);
+                }
+            }
+            em.getTransaction().rollback();
+            report(histogram);
+        } finally {
+            em.close();
+        }
+    }
+
+    private void insertMembers(EntityManagerFactory entityManagerFactory) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            for (int i = 0; i < members; i++) {
+                em.persist(new Member("member" + i, i % 100));
+                if ((i + 1) % 1_000 == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    private void report(LatencyHistogram histogram) {
+        System.out.printf("%10s %9s %9s %9s %9s%n", "flushes", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)");
+        System.out.printf("%10d %9.2f %9.2f %9.2f %9.2f%n", histogram.count(),
+                histogram.percentile(50) / 1000.0, histogram.percentile(90) / 1000.0,
+                histogram.percentile(99) / 1000.0, histogram.max() / 1000.0);
+    }
+}
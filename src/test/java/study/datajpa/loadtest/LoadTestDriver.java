@@ -0,0 +1,192 @@
+package study.datajpa.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 로컬 HTTP 부하 테스트 드라이버
+ * <p>
+ * /members/{id}, /members, /members/slice, /members/scroll 을 가중치대로 섞어 호출하고
+ * 엔드포인트별 처리량과 지연 시간 백분위를 출력한다.
+ * 운영 트래픽처럼 id 와 페이지 번호는 앞쪽(인기 있는 쪽)에 몰리도록 뽑는다.
+ * <p>
+ * ex) ./gradlew loadTest --args='--base-url=http://localhost:8080 --threads=32 --duration=60 --min-id=1001 --max-id=10001000'
+ * (데이터는 datajpa.dataset.enabled=true 로 만든다. 로그에 회원 id 범위가 찍힌다)
+ */
+public class LoadTestDriver {
+
+    private final String baseUrl;
+    private final int threads;
+    private final long durationMillis;
+    private final long warmupMillis;
+    private final long minId;
+    private final long maxId;
+    private final int pageSize;
+    private final int maxPage;
+    private final double skew;
+    private final long seed;
+    private final Map<String, Integer> mix;
+
+    private final HttpClient client;
+    private final Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> errors = new HashMap<>();
+
+    LoadTestDriver(Map<String, String> options) {
+        this.baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        this.threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        this.durationMillis = Long.parseLong(options.getOrDefault("duration", "30")) * 1000;
+        this.warmupMillis = Long.parseLong(options.getOrDefault("warmup", "5")) * 1000;
+        this.minId = Long.parseLong(options.getOrDefault("min-id", "1"));
+        this.maxId = Long.parseLong(options.getOrDefault("max-id", "10000"));
+        this.pageSize = Integer.parseInt(options.getOrDefault("page-size", "20"));
+        this.maxPage = Integer.parseInt(options.getOrDefault("max-page", "500"));
+        this.skew = Double.parseDouble(options.getOrDefault("skew", "0.8"));
+        this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        this.mix = parseMix(options.getOrDefault("mix", "member=60,page=20,slice=10,scroll=10"));
+
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (String endpoint : mix.keySet()) {
+            histograms.put(endpoint, new LatencyHistogram());
+            errors.put(endpoint, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --key=value but was " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadTestDriver(options).run();
+    }
+
+    void run() throws InterruptedException {
+        System.out.printf("load test: %s, %d threads, %ds (+%ds warmup), mix %s%n",
+                baseUrl, threads, durationMillis / 1000, warmupMillis / 1000, mix);
+
+        long start = System.currentTimeMillis();
+        long measureFrom = start + warmupMillis;
+        long end = measureFrom + durationMillis;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = new SplittableRandom(seed + i);
+            Thread worker = new Thread(() -> {
+                try {
+                    work(random, measureFrom, end);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + i);
+            worker.start();
+        }
+        done.await();
+        report(durationMillis);
+    }
+
+    private void work(SplittableRandom random, long measureFrom, long end) {
+        long now;
+        while ((now = System.currentTimeMillis()) < end) {
+            String endpoint = pickEndpoint(random);
+            URI uri = URI.create(baseUrl + path(endpoint, random));
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+
+            long started = System.nanoTime();
+            boolean ok;
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                ok = response.statusCode() < 400;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                ok = false;
+            }
+            long micros = (System.nanoTime() - started) / 1_000;
+
+            if (now >= measureFrom) {
+                histograms.get(endpoint).record(micros);
+                if (!ok) {
+                    errors.get(endpoint).incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private String path(String endpoint, SplittableRandom random) {
+        switch (endpoint) {
+            case "member":
+                return "/members/" + (minId + skewed(random, maxId - minId + 1));
+            case "page":
+                return "/members?page=" + skewed(random, maxPage) + "&size=" + pageSize;
+            case "slice":
+                return "/members/slice?page=" + skewed(random, maxPage) + "&size=" + pageSize;
+            case "scroll":
+                return "/members/scroll?cursor=" + (minId - 1 + skewed(random, maxId - minId + 1)) + "&size=" + pageSize;
+            default:
+                throw new IllegalArgumentException("unknown endpoint: " + endpoint);
+        }
+    }
+
+    /**
+     * [0, n) 에서 앞쪽에 몰리게 뽑는다. skew 가 0 이면 균등, 1 에 가까울수록 앞쪽으로 몰린다.
+     */
+    private long skewed(SplittableRandom random, long n) {
+        double u = random.nextDouble();
+        return Math.min(n - 1, (long) (n * Math.pow(u, 1 / (1 - Math.min(skew, 0.99)))));
+    }
+
+    private String pickEndpoint(SplittableRandom random) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int pick = random.nextInt(total);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private void report(long measuredMillis) {
+        System.out.printf("%-8s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        long totalRequests = 0;
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            long requests = histogram.count();
+            totalRequests += requests;
+            System.out.printf("%-8s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), requests, errors.get(entry.getKey()).get(), requests * 1000.0 / measuredMillis,
+                    histogram.percentile(50) / 1000.0, histogram.percentile(90) / 1000.0,
+                    histogram.percentile(99) / 1000.0, histogram.percentile(99.9) / 1000.0,
+                    histogram.max() / 1000.0);
+        }
+        System.out.printf("total    %10d %8s %10.1f%n", totalRequests, "", totalRequests * 1000.0 / measuredMillis);
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split("=");
+            int weight = Integer.parseInt(kv[1]);
+            if (weight > 0) {
+                weights.put(kv[0], weight);
+            }
+        }
+        return weights;
+    }
+}
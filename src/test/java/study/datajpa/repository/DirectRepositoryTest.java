@@ -0,0 +1,77 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class DirectRepositoryTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberDirectRepository memberDirectRepository;
+    @Autowired
+    TeamDirectRepository teamDirectRepository;
+    @Autowired
+    ItemDirectRepository itemDirectRepository;
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void find() throws Exception {
+        //given
+        Team team = new Team("teamA");
+        em.persist(team);
+        Member member1 = new Member("direct1", 10, team);
+        Member member2 = new Member("direct2", 20, team);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(new Item("direct-A"));
+        em.flush();
+        em.clear();
+
+        //when
+        Member findMember = memberDirectRepository.findById(member1.getId()).get();
+        List<Member> members = memberDirectRepository.findAllById(Arrays.asList(member1.getId(), member2.getId()));
+        List<Member> byUsername = memberDirectRepository.findByUsername("direct2");
+
+        //then
+        assertThat(findMember.getUsername()).isEqualTo("direct1");
+        assertThat(members).extracting("username").containsExactlyInAnyOrder("direct1", "direct2");
+        assertThat(byUsername).extracting("id").containsExactly(member2.getId());
+        assertThat(teamDirectRepository.findById(team.getId())).isPresent();
+        assertThat(itemDirectRepository.findById("direct-A")).isPresent();
+        assertThat(memberDirectRepository.findById(-1L)).isEmpty();
+    }
+
+    /**
+     * 프록시를 거치지 않아도 같은 영속성 컨택스트를 쓰므로 Spring Data 리포지토리와 같은 인스턴스를 돌려준다.
+     */
+    @Test
+    public void sharePersistenceContextWithRepository() throws Exception {
+        //given
+        Member member = new Member("member1", 10);
+        em.persist(member);
+        em.flush();
+        em.clear();
+
+        //when
+        Member byRepository = memberRepository.findById(member.getId()).get();
+        Member byDirect = memberDirectRepository.findById(member.getId()).get();
+
+        //then
+        assertThat(byDirect).isSameAs(byRepository);
+    }
+}
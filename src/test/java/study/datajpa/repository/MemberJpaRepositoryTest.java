@@ -22,6 +22,8 @@ class MemberJpaRepositoryTest {
 
     @Autowired
     MemberJpaRepository memberJpaRepository;
+    @Autowired
+    TeamJpaRepository teamJpaRepository;
 
     @Test
     public void testMember() throws Exception {
@@ -156,4 +158,51 @@ class MemberJpaRepositoryTest {
 
         // then
     }
-}
\ No newline at end of file
+
+    @Test
+    @Rollback
+    public void existsAndCountUpTo() throws Exception {
+        //given
+        for (int i = 0; i < 5; i++) {
+            memberJpaRepository.save(new Member("jpaProbe" + i, 74));
+        }
+        teamJpaRepository.save(new Team("probeTeam"));
+
+        // when
+        boolean exists = memberJpaRepository.existsByUsername("jpaProbe1");
+        boolean notExists = memberJpaRepository.existsByUsername("jpaProbe-none");
+        long capped = memberJpaRepository.countUpTo(74, 3);
+
+        // then
+        assertThat(exists).isTrue();
+        assertThat(notExists).isFalse();
+        assertThat(capped).isEqualTo(3);
+        assertThat(teamJpaRepository.existsByName("probeTeam")).isTrue();
+        assertThat(teamJpaRepository.countUpTo(1)).isEqualTo(1);
+    }
+
+    @Test
+    public void purge() throws Exception {
+        //given
+        Team team = teamJpaRepository.save(new Team("purgeTeam"));
+        Member member1 = memberJpaRepository.save(new Member("purge1", -1, team));
+        Member member2 = memberJpaRepository.save(new Member("purge2", -1, team));
+        Member member3 = memberJpaRepository.save(new Member("purge3", -2));
+        Member member4 = memberJpaRepository.save(new Member("purge4", -3));
+
+        // when
+        PurgeResult result = teamJpaRepository.purge(List.of(team.getId()));
+        int deleted = memberJpaRepository.deleteAllByIdInBatch(List.of(member3.getId(), member3.getId()));
+        int purged = memberJpaRepository.purgeByAgeLessThan(-2);
+
+        // then 회원을 먼저 지우고, 영속성 컨텍스트에서도 떼어낸다.
+        assertThat(result.getMembers()).isEqualTo(2);
+        assertThat(result.getTeams()).isEqualTo(1);
+        assertThat(deleted).isEqualTo(1);
+        assertThat(purged).isEqualTo(1);
+        assertThat(memberJpaRepository.find(member1.getId())).isNull();
+        assertThat(memberJpaRepository.find(member2.getId())).isNull();
+        assertThat(memberJpaRepository.find(member4.getId())).isNull();
+        assertThat(teamJpaRepository.find(team.getId())).isNull();
+    }
+}
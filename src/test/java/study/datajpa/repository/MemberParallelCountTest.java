@@ -0,0 +1,116 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.entity.Member;
+import study.datajpa.support.ParallelPageExecutor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * count 쿼리가 다른 트랜잭션에서 실행되므로 테스트 트랜잭션 없이 커밋된 데이터로 검증한다.
+ */
+@SpringBootTest
+class MemberParallelCountTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void parallelCount() throws Exception {
+        //given
+        int age = ThreadLocalRandom.current().nextInt(1_000, 1_000_000);
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("user" + i, age));
+        }
+
+        // when
+        Page<Member> page = memberRepository.findByAgeWithParallelCount(age, PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "username")));
+
+        // then
+        assertThat(page.getContent()).extracting(Member::getUsername).containsExactly("user4", "user3", "user2");
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getTotalPages()).isEqualTo(2);
+    }
+
+    @Test
+    public void skipCountWhenContentIsShorterThanPage() throws Exception {
+        //given
+        int age = ThreadLocalRandom.current().nextInt(1_000, 1_000_000);
+        for (int i = 0; i < 2; i++) {
+            memberRepository.save(new Member("user" + i, age));
+        }
+
+        // when
+        Page<Member> page = memberRepository.findByAgeWithParallelCount(age, PageRequest.of(0, 10));
+
+        // then
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    /**
+     * count 자리가 모두 차 있으면 기다리지 않고 호출한 스레드에서 센다.
+     */
+    @Test
+    public void countOnCallerWhenSlotsAreBusy() throws Exception {
+        //given
+        ParallelPageExecutor executor = new ParallelPageExecutor(transactionManager, 1, 10);
+        CountDownLatch countStarted = new CountDownLatch(1);
+        CountDownLatch releaseCount = new CountDownLatch(1);
+        CompletableFuture<Long> busy = CompletableFuture.supplyAsync(() ->
+                executor.getPage(PageRequest.of(0, 1), () -> List.of("a"), () -> {
+                    countStarted.countDown();
+                    await(releaseCount);
+                    return 1;
+                }).getTotalElements());
+        assertThat(countStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            // when
+            Thread caller = Thread.currentThread();
+            Thread[] countedOn = new Thread[1];
+            long total = executor.getPage(PageRequest.of(0, 1), () -> List.of("b"), () -> {
+                countedOn[0] = Thread.currentThread();
+                return 7;
+            }).getTotalElements();
+
+            // then
+            assertThat(total).isEqualTo(7);
+            assertThat(countedOn[0]).isSameAs(caller);
+        } finally {
+            releaseCount.countDown();
+            assertThat(busy.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void countPoolMustBeSmallerThanConnectionPool() throws Exception {
+        assertThatThrownBy(() -> new ParallelPageExecutor(transactionManager, 10, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 워커가 별도 트랜잭션으로 조회하므로 테스트 트랜잭션 없이 커밋된 데이터로 검증한다.
+ */
+@SpringBootTest
+class MemberParallelScanTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void orderedScan() throws Exception {
+        //given
+        for (int i = 0; i < 25; i++) {
+            memberRepository.save(new Member("scan" + i, i));
+        }
+        long total = memberRepository.count();
+
+        List<Long> ids = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger progressEvents = new AtomicInteger();
+        ParallelScanOptions options = new ParallelScanOptions(10, 3, 4, true, progress -> progressEvents.incrementAndGet());
+
+        // when
+        ParallelScanProgress progress = memberRepository.scanInParallel(options,
+                members -> members.forEach(member -> ids.add(member.getId())));
+
+        // then
+        List<Long> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        assertThat(ids).isEqualTo(sorted);
+        assertThat(progress.getProcessedRows()).isEqualTo(total);
+        assertThat(progress.getCompletedChunks()).isEqualTo(progress.getTotalChunks());
+        assertThat(progressEvents.get()).isEqualTo(progress.getTotalChunks());
+    }
+
+    @Test
+    public void unorderedScan() throws Exception {
+        //given
+        for (int i = 0; i < 25; i++) {
+            memberRepository.save(new Member("scan" + i, i));
+        }
+        long total = memberRepository.count();
+        AtomicInteger rows = new AtomicInteger();
+
+        // when
+        ParallelScanProgress progress = memberRepository.scanInParallel(ParallelScanOptions.of(7, 4),
+                members -> rows.addAndGet(members.size()));
+
+        // then
+        assertThat(rows.get()).isEqualTo(total);
+        assertThat(progress.getProcessedRows()).isEqualTo(total);
+    }
+
+    @Test
+    public void stopAfterFirstFailure() throws Exception {
+        //given
+        for (int i = 0; i < 25; i++) {
+            memberRepository.save(new Member("scan" + i, i));
+        }
+        AtomicInteger consumed = new AtomicInteger();
+        ParallelScanOptions options = new ParallelScanOptions(5, 1, 1, false, null);
+
+        // when, then 실패한 뒤로는 청크를 제출하지도 실행하지도 않는다.
+        assertThatThrownBy(() -> memberRepository.scanInParallel(options, members -> {
+            consumed.incrementAndGet();
+            throw new IllegalStateException("consumer failed");
+        })).hasMessage("consumer failed");
+        assertThat(consumed.get()).isEqualTo(1);
+    }
+}
@@ -1,6 +1,7 @@
 package study.datajpa.repository;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -264,6 +265,42 @@ class MemberRepositoryTest {
         assertThat(toMap.hasNext()).isTrue();
     }
 
+    @Test
+    public void slice() throws Exception {
+        //given
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("user" + i, 10));
+        }
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "username"));
+
+        // when
+        Slice<Member> slice = memberRepository.findSliceByAge(10, pageRequest);
+
+        // then
+        assertThat(slice.getContent().size()).isEqualTo(3);
+        assertThat(slice.isFirst()).isTrue();
+        assertThat(slice.hasNext()).isTrue();
+    }
+
+    @Test
+    public void keysetSlice() throws Exception {
+        //given
+        Member member1 = memberRepository.save(new Member("userA", 10));
+        Member member2 = memberRepository.save(new Member("userB", 10));
+        Member member3 = memberRepository.save(new Member("userC", 10));
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by("id"));
+
+        // when
+        Slice<Member> first = memberRepository.findSliceByIdGreaterThan(member1.getId() - 1, pageRequest);
+        Slice<Member> last = memberRepository.findSliceByIdGreaterThan(member2.getId(), pageRequest);
+
+        // then
+        assertThat(first.getContent()).containsExactly(member1, member2);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).containsExactly(member3);
+        assertThat(last.hasNext()).isFalse();
+    }
+
     @Test
     public void bulkUpdate() throws Exception {
         //given
@@ -331,6 +368,27 @@ class MemberRepositoryTest {
         // then
     }
 
+    @Test
+    public void lazyProfile() throws Exception {
+        //given
+        Member member = new Member("member1", 10);
+        member.changeProfile("profile");
+        memberRepository.save(member);
+        em.flush();
+        em.clear();
+
+        // when
+        Member slimMember = memberRepository.findByUsername("member1").get(0);
+        boolean slimInitialized = Hibernate.isPropertyInitialized(slimMember, "profile");
+        em.clear();
+        Member fullMember = memberRepository.findWithProfileByUsername("member1").get(0);
+
+        // then
+        assertThat(slimInitialized).isFalse();
+        assertThat(Hibernate.isPropertyInitialized(fullMember, "profile")).isTrue();
+        assertThat(fullMember.getProfile()).isEqualTo("profile");
+    }
+
     @Test
     public void lock() throws Exception {
         //given
@@ -409,4 +467,27 @@ class MemberRepositoryTest {
         // then
         assertThat(result.size()).isEqualTo(1);
     }
-}
\ No newline at end of file
+
+    @Test
+    @Rollback
+    public void existsAndCountUpTo() throws Exception {
+        //given
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("probe" + i, 73));
+        }
+        em.flush();
+        em.clear();
+
+        // when
+        boolean exists = memberRepository.existsByUsername("probe1");
+        boolean notExists = memberRepository.existsByUsername("probe-none");
+        long capped = memberRepository.countUpTo(73, 3);
+        long all = memberRepository.countUpTo(73, 100);
+
+        // then
+        assertThat(exists).isTrue();
+        assertThat(notExists).isFalse();
+        assertThat(capped).isEqualTo(3);
+        assertThat(all).isEqualTo(5);
+    }
+}
@@ -0,0 +1,79 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.config.ShardRoutingDataSource;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 세 개의 인메모리 H2 샤드로 co-location 과 scatter-gather 를 검증한다.
+ * 샤드마다 커넥션이 다르므로 테스트 트랜잭션(@Transactional)을 쓰지 않는다.
+ */
+@SpringBootTest(properties = {
+        "datajpa.sharding.enabled=true",
+        "datajpa.sharding.initialize-schema=true",
+        "datajpa.sharding.shards[0].url=jdbc:h2:mem:member-shard0;DB_CLOSE_DELAY=-1",
+        "datajpa.sharding.shards[1].url=jdbc:h2:mem:member-shard1;DB_CLOSE_DELAY=-1",
+        "datajpa.sharding.shards[2].url=jdbc:h2:mem:member-shard2;DB_CLOSE_DELAY=-1"
+})
+class MemberShardRepositoryTest {
+
+    @Autowired
+    MemberShardRepository memberShardRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    ShardRoutingDataSource shardRoutingDataSource;
+
+    @Test
+    public void colocateAndScatter() throws Exception {
+        //given
+        Team teamA = memberShardRepository.saveTeam(new Team("shardTeamA"));
+        Team teamB = memberShardRepository.saveTeam(new Team("shardTeamB"));
+        Team teamC = memberShardRepository.saveTeam(new Team("shardTeamC"));
+        for (Team team : List.of(teamA, teamB, teamC)) {
+            memberShardRepository.saveMember(new Member("shardMember", 51, team));
+            memberShardRepository.saveMember(new Member("shardOther", 51, team));
+        }
+
+        //then 팀은 샤드에 고르게, 회원은 팀과 같은 샤드에 저장된다.
+        for (Team team : List.of(teamA, teamB, teamC)) {
+            int shard = (int) (team.getId() % 3);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shardRoutingDataSource.getShard(shard));
+            assertThat(jdbcTemplate.queryForObject("select count(*) from member where team_id = ?", Long.class, team.getId()))
+                    .isEqualTo(2);
+            assertThat(jdbcTemplate.queryForObject("select count(*) from team where team_id = ?", Long.class, team.getId()))
+                    .isEqualTo(1);
+        }
+        assertThat(List.of(teamA.getId() % 3, teamB.getId() % 3, teamC.getId() % 3)).containsExactlyInAnyOrder(0L, 1L, 2L);
+
+        //when 샤드 키가 없는 조회
+        List<Member> byUsername = memberShardRepository.findByUsername("shardMember");
+        List<MemberDto> dtos = memberShardRepository.findMemberDto("shardMember", 50);
+        Page<Member> page = memberShardRepository.findByAge(51, PageRequest.of(1, 2, Sort.by("username", "id")));
+
+        //then
+        assertThat(byUsername).hasSize(3);
+        assertThat(dtos).extracting("teamName").containsExactlyInAnyOrder("shardTeamA", "shardTeamB", "shardTeamC");
+        assertThat(page.getTotalElements()).isEqualTo(6);
+        assertThat(page.getContent()).extracting("username").containsExactly("shardMember", "shardOther");
+    }
+
+    @Test
+    public void failWithoutShard() throws Exception {
+        assertThatThrownBy(() -> memberRepository.save(new Member("unsharded")))
+                .hasStackTraceContaining("no shard is selected");
+    }
+}
@@ -0,0 +1,51 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.datajpa.entity.Member;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardResultsTest {
+
+    @Test
+    public void mergePages() throws Exception {
+        //given
+        PageRequest pageRequest = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "username"));
+        Page<Member> shard0 = new PageImpl<>(Arrays.asList(new Member("userE", 10), new Member("userC", 10), new Member("userA", 10)),
+                ShardResults.shardPageable(pageRequest), 3);
+        Page<Member> shard1 = new PageImpl<>(Arrays.asList(new Member("userD", 10), new Member("userB", 10)),
+                ShardResults.shardPageable(pageRequest), 2);
+
+        // when
+        Page<Member> page = ShardResults.mergePages(List.of(shard0, shard1), pageRequest);
+
+        // then
+        List<String> usernames = page.getContent().stream().map(Member::getUsername).collect(Collectors.toList());
+        assertThat(usernames).containsExactly("userC", "userB");
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getTotalPages()).isEqualTo(3);
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    @Test
+    public void shardPageableStartsFromFirstPage() throws Exception {
+        //given
+        PageRequest pageRequest = PageRequest.of(2, 3, Sort.by("age"));
+
+        // when
+        PageRequest shardPageable = (PageRequest) ShardResults.shardPageable(pageRequest);
+
+        // then
+        assertThat(shardPageable.getPageNumber()).isEqualTo(0);
+        assertThat(shardPageable.getPageSize()).isEqualTo(9);
+        assertThat(shardPageable.getSort()).isEqualTo(Sort.by("age"));
+    }
+}
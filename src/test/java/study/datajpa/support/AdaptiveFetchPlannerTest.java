@@ -0,0 +1,118 @@
+package study.datajpa.support;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "datajpa.fetch-plan.min-samples=2",
+        "datajpa.fetch-plan.sample-every=1000"
+})
+@Transactional
+class AdaptiveFetchPlannerTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    AdaptiveFetchPlanner adaptiveFetchPlanner;
+    @Autowired
+    EntityManager em;
+
+    PageRequest newest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "id"));
+
+    @BeforeEach
+    public void setUp() {
+        adaptiveFetchPlanner.reset();
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamB));
+        em.persist(new Member("member3", 30, teamA));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void joinWhenAccessed() throws Exception {
+        FetchPlan plan = FetchPlan.of("accessed", "team");
+
+        // 표본 호출: 가져오지 않고 접근 여부를 본다.
+        for (int i = 0; i < 2; i++) {
+            List<Member> members = memberRepository.findByFetchPlan(plan, newest);
+            assertThat(Hibernate.isInitialized(members.get(0).getTeam())).isFalse();
+            members.get(0).getTeam().getName();
+            em.clear();
+        }
+
+        //when
+        List<Member> members = memberRepository.findByFetchPlan(plan, newest);
+
+        //then
+        assertThat(members).allMatch(m -> Hibernate.isInitialized(m.getTeam()));
+        FetchPlanStats stats = adaptiveFetchPlanner.report().get(0);
+        assertThat(stats.getSampled()).isEqualTo(2);
+        assertThat(stats.getAccessed()).isEqualTo(2);
+        assertThat(stats.getJoinFetched()).isEqualTo(1);
+        assertThat(stats.isFetchedButUnused()).isFalse();
+    }
+
+    @Test
+    public void skipWhenNeverAccessed() throws Exception {
+        FetchPlan plan = FetchPlan.of("unused", "team");
+
+        for (int i = 0; i < 2; i++) {
+            memberRepository.findByFetchPlan(plan, newest);
+            em.clear();
+        }
+
+        //when
+        List<Member> members = memberRepository.findByFetchPlan(plan, newest);
+
+        //then
+        assertThat(members).noneMatch(m -> Hibernate.isInitialized(m.getTeam()));
+        FetchPlanStats stats = adaptiveFetchPlanner.report().get(0);
+        assertThat(stats.getSampled()).isEqualTo(2);
+        assertThat(stats.getAccessed()).isZero();
+        assertThat(stats.getNotFetched()).isEqualTo(3);
+    }
+
+    @Test
+    public void reportFetchedButUnused() throws Exception {
+        FetchPlan plan = FetchPlan.of("fetchedUnused", "team");
+        PageRequest large = PageRequest.of(0, 200, Sort.by(Sort.Direction.DESC, "id"));
+
+        // 표본 호출에서는 접근했다.
+        for (int i = 0; i < 2; i++) {
+            memberRepository.findByFetchPlan(plan, large).get(0).getTeam().getName();
+            em.clear();
+        }
+
+        //when 가져온(BATCH) 뒤로는 접근하지 않는다.
+        for (int i = 0; i < 2; i++) {
+            memberRepository.findByFetchPlan(plan, large);
+            em.clear();
+        }
+
+        //then
+        FetchPlanStats stats = adaptiveFetchPlanner.report().get(0);
+        assertThat(stats.getBatchFetched()).isEqualTo(2);
+        assertThat(stats.getFetchedSampled()).isEqualTo(2);
+        assertThat(stats.getFetchedAccessed()).isZero();
+        assertThat(stats.isFetchedButUnused()).isTrue();
+    }
+}
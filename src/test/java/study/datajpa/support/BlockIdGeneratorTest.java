@@ -0,0 +1,105 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "datajpa.id-block.enabled=true",
+        "datajpa.id-block.block-size=50"
+})
+class BlockIdGeneratorTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManager em;
+
+    Set<Long> memberIds = ConcurrentHashMap.newKeySet();
+    Set<Long> teamIds = ConcurrentHashMap.newKeySet();
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAllByIdInBatch(memberIds);
+        teamRepository.deleteAllByIdInBatch(teamIds);
+    }
+
+    @Test
+    public void concurrentInserts() throws Exception {
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10; i++) {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        Team team = new Team("blockTeam");
+                        em.persist(team);
+                        teamIds.add(team.getId());
+                        for (int j = 0; j < 10; j++) {
+                            Member member = new Member("blockMember", j, team);
+                            em.persist(member);
+                            memberIds.add(member.getId());
+                        }
+                    });
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        //then
+        assertThat(teamIds).hasSize(40);
+        assertThat(memberIds).hasSize(400);
+        // 블록 크기(50)마다 한 번씩만 시퀀스를 호출하므로 id 가 블록 몇 개 안에 모인다.
+        long spread = memberIds.stream().mapToLong(Long::longValue).max().getAsLong()
+                - memberIds.stream().mapToLong(Long::longValue).min().getAsLong();
+        assertThat(spread).isLessThan(400 + 4 * 50);
+    }
+
+    /**
+     * 블록을 세 개 넘게 받아도 블록끼리 겹치지 않는다. (시퀀스가 increment by 블록 크기로 만들어져야 한다)
+     */
+    @Test
+    public void blocksDoNotOverlap() throws Exception {
+        //when
+        List<Long> ids = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 50 * 3 + 1; i++) {
+                Member member = new Member("blockMember", i);
+                em.persist(member);
+                ids.add(member.getId());
+            }
+        });
+        memberIds.addAll(ids);
+
+        //then
+        assertThat(ids).hasSize(151).doesNotHaveDuplicates();
+        Number increment = (Number) em.createNativeQuery("select increment from information_schema.sequences" +
+                " where upper(sequence_name) = 'MEMBER_ID_BLOCK'").getSingleResult();
+        assertThat(increment.longValue()).isEqualTo(50);
+    }
+}
@@ -0,0 +1,163 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheInvalidationBusTest {
+
+    LocalInvalidationTransport.Hub hub = new LocalInvalidationTransport.Hub();
+    List<CacheInvalidationBus> buses = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        for (CacheInvalidationBus bus : buses) {
+            bus.destroy();
+        }
+    }
+
+    @Test
+    public void batchAndDeduplicate() throws Exception {
+        //given
+        RecordingListener listenerA = new RecordingListener();
+        RecordingListener listenerB = new RecordingListener();
+        RecordingListener listenerC = new RecordingListener();
+        CacheInvalidationBus nodeA = node(listenerA);
+        node(listenerB);
+        node(listenerC);
+
+        //when
+        nodeA.invalidate("Member", Set.of(1L, 2L));
+        nodeA.invalidate("Member", Set.of(2L, 3L));
+        nodeA.invalidate("Team", Set.of(10L));
+        nodeA.invalidateRegion("Team");
+        nodeA.flush();
+
+        //then 자기 노드에는 보내지 않고, 다른 노드에는 한 메시지로 중복 없이 전달된다.
+        assertThat(listenerA.ids).isEmpty();
+        for (RecordingListener listener : List.of(listenerB, listenerC)) {
+            assertThat(listener.ids).containsOnlyKeys("Member");
+            assertThat(listener.ids.get("Member")).containsExactlyInAnyOrder(1L, 2L, 3L);
+            assertThat(listener.regions).containsExactly("Team");
+            assertThat(listener.calls).isEqualTo(2);
+            assertThat(listener.all).isZero();
+        }
+    }
+
+    @Test
+    public void compactMessage() throws Exception {
+        Set<Long> ids = new HashSet<>();
+        for (long id = 1_000_000; id < 1_001_000; id++) {
+            ids.add(id);
+        }
+        byte[] bytes = CacheInvalidationBus.encode(new CacheInvalidationBus.Message(
+                CacheInvalidationBus.BATCH, 1L, 2L, 3L, Map.of("Member", ids), Set.of()));
+
+        // 정렬된 id 의 차이값이라 id 하나에 1바이트
+        assertThat(bytes.length).isLessThan(1_100);
+        assertThat(CacheInvalidationBus.decode(bytes).ids.get("Member")).isEqualTo(ids);
+    }
+
+    @Test
+    public void lostMessageInvalidatesAll() throws Exception {
+        //given
+        RecordingListener listenerB = new RecordingListener();
+        CacheInvalidationBus nodeA = node(new RecordingListener());
+        node(listenerB);
+        nodeA.invalidate("Member", Set.of(1L));
+        nodeA.flush();
+
+        //when 한 번은 유실되고, 다음 heartbeat 가 마지막 순번을 알린다.
+        hub.setDropping(true);
+        nodeA.invalidate("Member", Set.of(2L));
+        nodeA.flush();
+        hub.setDropping(false);
+        nodeA.heartbeat();
+        nodeA.heartbeat();
+
+        //then
+        assertThat(listenerB.ids.get("Member")).containsExactly(1L);
+        assertThat(listenerB.all).isEqualTo(1);
+    }
+
+    @Test
+    public void firstContactAfterMissedMessages() throws Exception {
+        //given 다른 노드가 구독하기 전에 보낸 변경
+        CacheInvalidationBus nodeA = node(new RecordingListener());
+        nodeA.invalidate("Member", Set.of(1L));
+        nodeA.flush();
+
+        //when
+        RecordingListener listenerB = new RecordingListener();
+        RecordingListener listenerC = new RecordingListener();
+        node(listenerB);
+        nodeA.invalidate("Member", Set.of(2L));
+        nodeA.flush();
+        node(listenerC);
+        nodeA.heartbeat();
+
+        //then 첫 메시지가 1번이 아니면 유실로 보고 전체를 무효화한다.
+        assertThat(listenerB.all).isEqualTo(1);
+        assertThat(listenerB.ids).isEmpty();
+        assertThat(listenerC.all).isEqualTo(1);
+    }
+
+    @Test
+    public void firstContactFromFreshNode() throws Exception {
+        //given
+        RecordingListener listenerB = new RecordingListener();
+        CacheInvalidationBus nodeA = node(new RecordingListener());
+        node(listenerB);
+
+        //when
+        nodeA.heartbeat();
+        nodeA.invalidate("Member", Set.of(1L));
+        nodeA.flush();
+
+        //then
+        assertThat(listenerB.all).isZero();
+        assertThat(listenerB.ids.get("Member")).containsExactly(1L);
+    }
+
+    private CacheInvalidationBus node(CacheInvalidationListener listener) {
+        CacheBusProperties properties = new CacheBusProperties();
+        // 테스트에서는 직접 flush / heartbeat 한다.
+        properties.setMaxDelayMillis(60_000);
+        properties.setHeartbeatMillis(60_000);
+        CacheInvalidationBus bus = new CacheInvalidationBus(hub.connect(), List.of(listener), properties);
+        buses.add(bus);
+        return bus;
+    }
+
+    static class RecordingListener implements CacheInvalidationListener {
+        final Map<String, Set<Long>> ids = new HashMap<>();
+        final List<String> regions = new ArrayList<>();
+        int calls;
+        int all;
+
+        @Override
+        public synchronized void invalidate(String region, Set<Long> ids) {
+            calls++;
+            this.ids.computeIfAbsent(region, key -> new HashSet<>()).addAll(ids);
+        }
+
+        @Override
+        public synchronized void invalidateRegion(String region) {
+            calls++;
+            regions.add(region);
+        }
+
+        @Override
+        public synchronized void invalidateAll() {
+            all++;
+        }
+    }
+}
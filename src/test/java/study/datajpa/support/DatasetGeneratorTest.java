@@ -0,0 +1,57 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatasetGeneratorTest {
+
+    private DatasetGenerator generator(long seed) {
+        DatasetProperties properties = new DatasetProperties();
+        properties.setSeed(seed);
+        properties.setTeams(100);
+        properties.setMembers(10_000);
+        return new DatasetGenerator(null, properties);
+    }
+
+    @Test
+    public void deterministic() throws Exception {
+        DatasetGenerator generator = generator(42);
+        DatasetGenerator same = generator(42);
+        DatasetGenerator other = generator(7);
+
+        int differentUsernames = 0;
+        for (long i = 0; i < 1_000; i++) {
+            DatasetGenerator.GeneratedMember member = generator.member(i);
+            assertThat(same.member(i).getUsername()).isEqualTo(member.getUsername());
+            assertThat(same.member(i).getAge()).isEqualTo(member.getAge());
+            assertThat(same.member(i).getTeamIndex()).isEqualTo(member.getTeamIndex());
+            if (!other.member(i).getUsername().equals(member.getUsername())) {
+                differentUsernames++;
+            }
+        }
+        assertThat(differentUsernames).isGreaterThan(900);
+    }
+
+    @Test
+    public void skewedTeams() throws Exception {
+        DatasetGenerator generator = generator(42);
+        Map<Integer, Integer> teamSizes = new HashMap<>();
+        int noTeam = 0;
+        for (long i = 0; i < 10_000; i++) {
+            int team = generator.member(i).getTeamIndex();
+            if (team < 0) {
+                noTeam++;
+            } else {
+                teamSizes.merge(team, 1, Integer::sum);
+            }
+        }
+
+        // 가장 큰 팀이 가장 작은 팀보다 훨씬 크다.
+        assertThat(teamSizes.get(0)).isGreaterThan(10 * teamSizes.getOrDefault(99, 1));
+        assertThat(noTeam).isBetween(300, 700);
+    }
+}
@@ -0,0 +1,96 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "datajpa.history.enabled=true")
+class EntityHistoryTest {
+
+    @Autowired
+    EntityHistoryStore entityHistoryStore;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void asOf() throws Exception {
+        //given
+        LocalDateTime beforeInsert = LocalDateTime.now();
+        Long[] ids = transactionTemplate.execute(status -> {
+            Team team = new Team("historyTeam");
+            em.persist(team);
+            Member member = new Member("historyMember", 10, team);
+            em.persist(member);
+            return new Long[]{member.getId(), team.getId()};
+        });
+        Long memberId = ids[0];
+        LocalDateTime afterInsert = LocalDateTime.now();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = em.find(Member.class, memberId);
+            member.changeAge(20);
+            em.flush();
+            // 한 트랜잭션에서 여러 번 flush 해도 커밋할 때 한 번에 쓴다.
+            member.changeUsername("historyMember2");
+        });
+        LocalDateTime afterUpdate = LocalDateTime.now();
+
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Member.class, memberId)));
+        LocalDateTime afterDelete = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Team.class, ids[1])));
+
+        //when
+        Optional<Member> beforeInsertState = entityHistoryStore.asOf(Member.class, memberId, beforeInsert);
+        Member inserted = entityHistoryStore.asOf(Member.class, memberId, afterInsert).orElseThrow();
+        Member updated = entityHistoryStore.asOf(Member.class, memberId, afterUpdate).orElseThrow();
+        Optional<Member> deleted = entityHistoryStore.asOf(Member.class, memberId, afterDelete);
+
+        //then
+        assertThat(beforeInsertState).isEmpty();
+        assertThat(inserted.getUsername()).isEqualTo("historyMember");
+        assertThat(inserted.getAge()).isEqualTo(10);
+        assertThat(inserted.getTeam().getId()).isEqualTo(ids[1]);
+        assertThat(updated.getUsername()).isEqualTo("historyMember2");
+        assertThat(updated.getAge()).isEqualTo(20);
+        assertThat(updated.getCreatedDate()).isEqualTo(inserted.getCreatedDate());
+        assertThat(deleted).isEmpty();
+    }
+
+    @Test
+    public void rollbackIsNotRecorded() throws Exception {
+        Long[] memberId = new Long[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = new Member("historyRollback", 10);
+            em.persist(member);
+            em.flush();
+            memberId[0] = member.getId();
+            status.setRollbackOnly();
+        });
+
+        assertThat(entityHistoryStore.asOf(Member.class, memberId[0], LocalDateTime.now())).isEmpty();
+    }
+
+    @Test
+    public void dropOldPartitions() throws Exception {
+        jdbcTemplate.execute("create table if not exists entity_history_200001 (history_id bigint)");
+
+        assertThat(entityHistoryStore.dropPartitionsBefore(YearMonth.of(2000, 2)))
+                .anyMatch(table -> table.equalsIgnoreCase("entity_history_200001"));
+        assertThat(entityHistoryStore.dropPartitionsBefore(YearMonth.of(2000, 2))).isEmpty();
+    }
+}
@@ -0,0 +1,62 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdBlockAllocatorTest {
+
+    @Test
+    public void concurrentAllocation() throws Exception {
+        //given
+        IdBlockAllocator allocator = new IdBlockAllocator(100);
+        AtomicLong sequence = new AtomicLong(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(allocator.next(() -> sequence.getAndAdd(100)));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        //then 중복이 없고, 교체에 진 블록도 버리지 않으므로 빈 구간이 없다.
+        assertThat(ids).hasSize(80_000);
+        assertThat(ids.stream().mapToLong(Long::longValue).min().getAsLong()).isEqualTo(1);
+        assertThat(ids.stream().mapToLong(Long::longValue).max().getAsLong()).isLessThan(1 + 80_000 + 8 * 100);
+    }
+
+    @Test
+    public void timeOrderedIds() throws Exception {
+        long now = System.currentTimeMillis();
+        String first = TimeOrderedIdGenerator.encode(TimeOrderedIdGenerator.nextValue(now));
+        String second = TimeOrderedIdGenerator.encode(TimeOrderedIdGenerator.nextValue(now));
+        // 시계가 뒤로 가도 줄어들지 않는다.
+        String third = TimeOrderedIdGenerator.encode(TimeOrderedIdGenerator.nextValue(now - 1000));
+        String later = TimeOrderedIdGenerator.next();
+
+        assertThat(first).hasSize(21);
+        assertThat(first).isLessThan(second);
+        assertThat(second).isLessThan(third);
+        assertThat(third).isLessThan(later);
+    }
+}
@@ -0,0 +1,144 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberSearchDto;
+import study.datajpa.dto.TeamAgeSummaryDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "datajpa.snapshot.enabled=true",
+        "datajpa.snapshot.refresh-interval-millis=3600000"
+})
+class MemberColumnarSnapshotTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    MemberColumnarSnapshot memberColumnarSnapshot;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void groupAndTopN() throws Exception {
+        //given
+        Team teamA = teamRepository.save(new Team("snapshotA"));
+        Team teamB = teamRepository.save(new Team("snapshotB"));
+        memberRepository.save(new Member("snap-kim", 10, teamA));
+        memberRepository.save(new Member("snap-lee", 20, teamA));
+        Member park = memberRepository.save(new Member("snap-park", 30, teamB));
+        memberRepository.save(new Member("other", 40, teamB));
+
+        //when
+        memberColumnarSnapshot.refresh();
+        List<TeamAgeSummaryDto> teamsA = memberColumnarSnapshot.groupByTeam(MemberSnapshotFilter.all().team(teamA.getId()));
+        List<TeamAgeSummaryDto> snapTeamB = memberColumnarSnapshot.groupByTeam(MemberSnapshotFilter.all()
+                .team(teamB.getId())
+                .usernameLike("snap-%"));
+        List<MemberSearchDto> oldest = memberColumnarSnapshot.topByAge(MemberSnapshotFilter.all()
+                .team(teamA.getId())
+                .ageBetween(15, null), 5);
+
+        //then
+        assertThat(teamsA).hasSize(1);
+        assertThat(teamsA.get(0).getTeamName()).isEqualTo("snapshotA");
+        assertThat(teamsA.get(0).getMemberCount()).isEqualTo(2);
+        assertThat(teamsA.get(0).getAverageAge()).isEqualTo(15.0);
+        assertThat(snapTeamB.get(0).getMemberCount()).isEqualTo(1);
+        assertThat(snapTeamB.get(0).getMaxAge()).isEqualTo(30);
+        assertThat(oldest).extracting("username").containsExactly("snap-lee");
+
+        // 변경분만 다시 읽는다.
+        Member findPark = memberRepository.findById(park.getId()).get();
+        findPark.changeTeam(teamA);
+        memberRepository.save(findPark);
+        memberColumnarSnapshot.refresh();
+
+        List<MemberSearchDto> afterRefresh = memberColumnarSnapshot.topByAge(MemberSnapshotFilter.all()
+                .team(teamA.getId()), 2);
+        assertThat(afterRefresh).extracting("username").containsExactly("snap-park", "snap-lee");
+    }
+
+    /**
+     * lastModifiedDate 는 flush 시각이므로 늦게 커밋된 긴 트랜잭션의 행은 watermark 보다 이르다.
+     */
+    @Test
+    public void readLateCommitBeforeWatermark() throws Exception {
+        //given
+        memberColumnarSnapshot.refresh();
+
+        //when 먼저 flush 한 트랜잭션이 커밋되기 전에 다른 변경이 커밋되고 갱신이 watermark 를 올린다.
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.saveAndFlush(new Member("snap-late", 70));
+            CompletableFuture.runAsync(() -> {
+                sleep(20);
+                memberRepository.save(new Member("snap-early", 71));
+                memberColumnarSnapshot.refresh();
+            }).join();
+        });
+        memberColumnarSnapshot.refresh();
+
+        //then
+        List<MemberSearchDto> members = memberColumnarSnapshot.topByAge(MemberSnapshotFilter.all()
+                .usernameLike("snap-early")
+                .ageBetween(70, 71), 10);
+        List<MemberSearchDto> late = memberColumnarSnapshot.topByAge(MemberSnapshotFilter.all()
+                .usernameLike("snap-late")
+                .ageBetween(70, 71), 10);
+        assertThat(members).extracting("username").containsExactly("snap-early");
+        assertThat(late).extracting("username").containsExactly("snap-late");
+    }
+
+    /**
+     * 다른 노드의 벌크 연산은 lastModifiedDate 를 바꾸지 않고 무효화 버스로 id 만 전달된다.
+     */
+    @Test
+    public void reloadInvalidatedIdsFromOtherNode() throws Exception {
+        //given
+        Member updated = memberRepository.save(new Member("snap-remote", 80));
+        Member deleted = memberRepository.save(new Member("snap-remote", 81));
+        memberColumnarSnapshot.refresh();
+
+        //when 다른 노드의 bulkAgePlus
+        jdbcTemplate.update("update member set age = age + 5 where member_id = ?", updated.getId());
+        memberColumnarSnapshot.invalidate("Member", Set.of(updated.getId()));
+        memberColumnarSnapshot.refresh();
+        List<MemberSearchDto> afterUpdate = memberColumnarSnapshot.topByAge(MemberSnapshotFilter.all()
+                .usernameLike("snap-remote"), 10);
+
+        //when 다른 노드의 deleteAllByIdInBatch
+        jdbcTemplate.update("delete from member where member_id = ?", deleted.getId());
+        memberColumnarSnapshot.invalidate("Member", Set.of(deleted.getId()));
+        memberColumnarSnapshot.refresh();
+        long afterDelete = memberColumnarSnapshot.count(MemberSnapshotFilter.all().usernameLike("snap-remote"));
+
+        //then
+        assertThat(afterUpdate).extracting("age").containsExactly(85, 81);
+        assertThat(afterDelete).isEqualTo(1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.dto.MemberSearchDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberSearchIndexTest {
+
+    private MemberSearchIndex index() {
+        MemberSearchIndex index = new MemberSearchIndex();
+        index.put(1L, "memberA", 10);
+        index.put(2L, "memberB", 20);
+        index.put(3L, "userMember", 30);
+        index.put(4L, "userA", 40);
+        return index;
+    }
+
+    private List<String> usernames(Page<MemberSearchDto> page) {
+        return page.getContent().stream().map(MemberSearchDto::getUsername).collect(Collectors.toList());
+    }
+
+    @Test
+    public void prefix() throws Exception {
+        // when
+        Page<MemberSearchDto> page = index().search("MEM", MemberSearchIndex.Mode.PREFIX, 0, null, null, PageRequest.of(0, 10));
+
+        // then
+        assertThat(usernames(page)).containsExactly("memberA", "memberB");
+    }
+
+    @Test
+    public void infixWithAgeFilterAndPaging() throws Exception {
+        // when
+        Page<MemberSearchDto> page = index().search("ember", MemberSearchIndex.Mode.INFIX, 0, 15, null, PageRequest.of(0, 1));
+
+        // then
+        assertThat(usernames(page)).containsExactly("memberB");
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    @Test
+    public void fuzzy() throws Exception {
+        // when
+        Page<MemberSearchDto> page = index().search("membrA", MemberSearchIndex.Mode.FUZZY, 1, null, null, PageRequest.of(0, 10));
+
+        // then
+        assertThat(usernames(page)).containsExactly("memberA");
+    }
+
+    @Test
+    public void updateAndRemove() throws Exception {
+        //given
+        MemberSearchIndex index = index();
+
+        // when
+        index.put(1L, "renamed", 10);
+        index.remove(2L);
+        index.agePlus(30);
+
+        // then
+        assertThat(usernames(index.search("mem", MemberSearchIndex.Mode.PREFIX, 0, null, null, PageRequest.of(0, 10)))).isEmpty();
+        assertThat(index.search("user", MemberSearchIndex.Mode.PREFIX, 0, 31, null, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    public void rebuildSwapsAndReplaysChanges() throws Exception {
+        //given
+        MemberSearchIndex index = index();
+
+        // when 채우는 동안 기존 색인으로 검색하고, 들어온 변경은 새 색인에도 반영된다.
+        List<Long> servedDuringRebuild = new ArrayList<>();
+        boolean complete = index.rebuild(fresh -> {
+            fresh.put(1L, "memberA", 10);
+            fresh.put(2L, "memberB", 20);
+            servedDuringRebuild.add(index.search("mem", MemberSearchIndex.Mode.PREFIX, 0, null, null, PageRequest.of(0, 10))
+                    .getTotalElements());
+            index.put(5L, "memberC", 50);
+            index.remove(2L);
+        });
+
+        // then
+        assertThat(complete).isTrue();
+        assertThat(servedDuringRebuild).containsExactly(2L);
+        assertThat(usernames(index.search("mem", MemberSearchIndex.Mode.PREFIX, 0, null, null, PageRequest.of(0, 10))))
+                .containsExactly("memberA", "memberC");
+        assertThat(index.size()).isEqualTo(2);
+
+        // when 나이 벌크 연산은 다시 적용할 수 없으므로 다시 만들어야 한다고 알린다.
+        boolean afterAgePlus = index.rebuild(fresh -> index.agePlus(10));
+
+        // then
+        assertThat(afterAgePlus).isFalse();
+    }
+}
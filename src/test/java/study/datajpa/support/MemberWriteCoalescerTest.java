@@ -0,0 +1,57 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "datajpa.write-coalescing.enabled=true",
+        "datajpa.write-coalescing.max-delay-millis=60000",
+        "datajpa.write-coalescing.durability=LOCAL_LOG",
+        "datajpa.write-coalescing.log-path=build/member-write-coalescer-test.log"
+})
+class MemberWriteCoalescerTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberWriteCoalescer memberWriteCoalescer;
+
+    @Test
+    public void coalesce() throws Exception {
+        //given
+        Member member1 = memberRepository.save(new Member("member1", 10));
+        Member member2 = memberRepository.save(new Member("member2", 20));
+
+        //when
+        for (int age = 11; age <= 50; age++) {
+            memberWriteCoalescer.changeAge(member1.getId(), age);
+        }
+        memberWriteCoalescer.changeUsername(member1.getId(), "member1\tnew");
+        CompletableFuture<Void> future = memberWriteCoalescer.changeAge(member2.getId(), 21);
+
+        assertThat(future).isNotDone();
+        assertThat(memberWriteCoalescer.pendingCount()).isEqualTo(2);
+        assertThat(Files.exists(Paths.get("build/member-write-coalescer-test.log"))).isTrue();
+
+        int flushed = memberWriteCoalescer.flush();
+
+        //then
+        assertThat(flushed).isEqualTo(2);
+        assertThat(future).isDone();
+        assertThat(Files.exists(Paths.get("build/member-write-coalescer-test.log.flushing"))).isFalse();
+
+        Member findMember1 = memberRepository.findById(member1.getId()).get();
+        assertThat(findMember1.getAge()).isEqualTo(50);
+        assertThat(findMember1.getUsername()).isEqualTo("member1\tnew");
+        assertThat(memberRepository.findById(member2.getId()).get().getAge()).isEqualTo(21);
+    }
+}
@@ -0,0 +1,48 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffHeapColumnTest {
+
+    @Test
+    public void growKeepsValues() throws Exception {
+        //given
+        OffHeapColumn column = OffHeapColumn.longs(2);
+
+        //when
+        for (int row = 0; row < 100; row++) {
+            column.putLong(row, row * 10L);
+        }
+
+        //then
+        assertThat(column.getLong(0)).isEqualTo(0L);
+        assertThat(column.getLong(99)).isEqualTo(990L);
+        assertThat(column.offHeapBytes()).isGreaterThanOrEqualTo(100L * Long.BYTES);
+    }
+
+    /**
+     * 행 수 x 폭이 int 를 넘으면 음수 크기로 할당하지 않고 바로 실패한다.
+     */
+    @Test
+    public void rejectOverflowingCapacity() throws Exception {
+        assertThatThrownBy(() -> OffHeapColumn.longs(Integer.MAX_VALUE / 4))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void release() throws Exception {
+        //given
+        OffHeapColumn column = OffHeapColumn.ints(16);
+        column.putInt(0, 1);
+
+        //when
+        column.release();
+
+        //then
+        assertThat(column.offHeapBytes()).isZero();
+        assertThatThrownBy(() -> column.getInt(0)).isInstanceOf(NullPointerException.class);
+    }
+}
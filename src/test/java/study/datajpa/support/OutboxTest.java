@@ -0,0 +1,93 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.OutboxEvent;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.OutboxEventRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "datajpa.outbox.enabled=true")
+@Transactional
+class OutboxTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    OutboxEventRepository outboxEventRepository;
+    @Autowired
+    OutboxRelay outboxRelay;
+    @Autowired
+    EntityManager em;
+
+    private long lastEventId() {
+        return outboxEventRepository.findAll().stream()
+                .mapToLong(OutboxEvent::getId)
+                .max()
+                .orElse(0L);
+    }
+
+    @Test
+    public void captureChanges() throws Exception {
+        //given
+        long lastId = lastEventId();
+        Team team = teamRepository.save(new Team("teamA"));
+        // 다른 테스트의 회원이 벌크 연산 대상이 되지 않도록 나이를 크게 잡는다.
+        Member member = memberRepository.save(new Member("member1", 9871, team));
+        em.flush();
+
+        // when
+        member.changeUsername("member2");
+        em.flush();
+        memberRepository.bulkAgePlus(9871);
+
+        // then
+        List<OutboxEvent> events = outboxEventRepository.findAll(Sort.by("id")).stream()
+                .filter(e -> e.getId() > lastId)
+                .collect(Collectors.toList());
+        List<String> types = events.stream()
+                .map(e -> e.getAggregateType() + ":" + e.getEventType())
+                .collect(Collectors.toList());
+        assertThat(types).containsExactly("Team:CREATED", "Member:CREATED", "Member:UPDATED", "Member:BULK_UPDATED");
+        // 변경된 컬럼(username 과 auditing 컬럼)만 담긴다.
+        assertThat(events.get(2).getPayload()).contains("\"username\":\"member2\"").doesNotContain("\"age\"");
+        assertThat(events.get(1).getPayload()).contains("\"team\":" + team.getId());
+        // 벌크 연산은 대상 회원 id 를 담는다.
+        assertThat(events.get(3).getPayload()).contains("\"ids\":[" + member.getId() + "]");
+    }
+
+    @Test
+    public void relay() throws Exception {
+        //given
+        memberRepository.save(new Member("member1", 10));
+        em.flush();
+
+        List<OutboxEvent> received = new ArrayList<>();
+        outboxRelay.subscribe(received::addAll);
+
+        // when
+        int published;
+        do {
+            published = outboxRelay.relay();
+        } while (published > 0);
+
+        // then
+        assertThat(received).extracting(OutboxEvent::getEventType).contains(OutboxEvent.CREATED);
+        assertThat(outboxEventRepository.findByPublishedFalseOrderByIdAsc(PageRequest.of(0, 10))).isEmpty();
+    }
+}
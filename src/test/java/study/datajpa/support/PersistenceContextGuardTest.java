@@ -0,0 +1,146 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "datajpa.persistence-context-guard.enabled=true",
+        "datajpa.persistence-context-guard.max-managed-entities=3"
+})
+@Transactional
+class PersistenceContextGuardTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    PersistenceContextGuard guard;
+    @Autowired
+    PersistenceContextGuardProperties properties;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    CheckpointedService checkpointedService;
+
+    @AfterEach
+    void resetMode() {
+        properties.setMode(PersistenceContextGuardProperties.Mode.WARN);
+    }
+
+    private void saveMembers(int count) {
+        for (int i = 0; i < count; i++) {
+            memberRepository.save(new Member("member" + i, i));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void recordHighWaterMark() throws Exception {
+        //given
+        saveMembers(5);
+
+        // when
+        memberRepository.findMemberCustom();
+
+        // then
+        assertThat(guard.getHighWaterMarks().get("-")).isGreaterThanOrEqualTo(5L);
+    }
+
+    @Test
+    public void failFast() throws Exception {
+        //given
+        saveMembers(5);
+        properties.setMode(PersistenceContextGuardProperties.Mode.FAIL);
+
+        // when, then
+        assertThatThrownBy(() -> memberRepository.findMemberCustom())
+                .hasStackTraceContaining("PersistenceContextLimitExceededException");
+    }
+
+    @Test
+    public void failFastOnPersistLoop() throws Exception {
+        //given
+        properties.setMode(PersistenceContextGuardProperties.Mode.FAIL);
+
+        // when, then 조회 없이 저장만 반복해도 임계치를 넘으면 멈춘다.
+        assertThatThrownBy(() -> saveMembers(5))
+                .hasStackTraceContaining("PersistenceContextLimitExceededException");
+    }
+
+    @Test
+    public void flushAndClearOnlyAtCheckpoint() throws Exception {
+        //given
+        saveMembers(5);
+        List<Member> members = memberRepository.findMemberCustom();
+        long clearCount = guard.getClearCount();
+
+        // when 표시되지 않은 리포지토리 호출은 clear 하지 않는다.
+        memberRepository.count();
+
+        // then
+        assertThat(guard.getClearCount()).isEqualTo(clearCount);
+        assertThat(em.contains(members.get(0))).isTrue();
+
+        // when
+        checkpointedService.count();
+
+        // then
+        assertThat(guard.getClearCount()).isEqualTo(clearCount + 1);
+        assertThat(em.contains(members.get(0))).isFalse();
+    }
+
+    @Test
+    public void flushAndClearAtPurgeChunkBoundary() throws Exception {
+        //given
+        saveMembers(5);
+        List<Member> members = memberRepository.findMemberCustom();
+        long clearCount = guard.getClearCount();
+
+        // when
+        int purged = memberJpaRepository.purgeByAgeLessThan(1);
+
+        // then
+        assertThat(purged).isPositive();
+        assertThat(guard.getClearCount()).isEqualTo(clearCount + 1);
+        assertThat(em.contains(members.get(members.size() - 1))).isFalse();
+    }
+
+    @TestConfiguration
+    static class CheckpointConfig {
+
+        @Bean
+        CheckpointedService checkpointedService(MemberRepository memberRepository) {
+            return new CheckpointedService(memberRepository);
+        }
+    }
+
+    static class CheckpointedService {
+
+        private final MemberRepository memberRepository;
+
+        CheckpointedService(MemberRepository memberRepository) {
+            this.memberRepository = memberRepository;
+        }
+
+        @PersistenceContextCheckpoint
+        public long count() {
+            return memberRepository.count();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class QueryLimitTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    QueryLimitMetrics queryLimitMetrics;
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void maxRows() throws Exception {
+        //given
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i <= 1000; i++) {
+            names.add("limit" + i);
+            em.persist(new Member("limit" + i, i));
+        }
+        em.flush();
+        em.clear();
+
+        //when
+        List<Member> withinLimit = memberRepository.findByNames(Arrays.asList("limit1", "limit2"));
+
+        //then
+        assertThat(withinLimit).hasSize(2);
+        assertThatThrownBy(() -> memberRepository.findByNames(names))
+                .isInstanceOf(QueryLimitExceededException.class)
+                .hasMessageContaining("MemberRepository.findByNames");
+
+        Map<String, Long> metrics = queryLimitMetrics.getMetrics().get("MemberRepository.findByNames");
+        assertThat(metrics.get("rowsExceeded")).isGreaterThanOrEqualTo(1);
+        // 첫 select 는 maxRows + 1 행까지만 읽는다.
+        assertThat(metrics.get("maxRows")).isEqualTo(1001);
+    }
+
+    /**
+     * 행 수 제한은 setMaxResults 로 걸리므로 원래 쿼리의 정렬을 지킨 채 앞에서부터 자른다.
+     */
+    @Test
+    public void capKeepsOrder() throws Exception {
+        //given
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("order" + i, i * 10));
+        }
+        em.flush();
+        em.clear();
+        EntityManager limited = QueryLimitEntityManager.wrap(em);
+
+        //when
+        Integer previous = QueryLimitEntityManager.capNextQuery(3);
+        List<Member> members;
+        try {
+            members = limited.createQuery("select m from Member m where m.username like 'order%' order by m.age desc", Member.class)
+                    .getResultList();
+        } finally {
+            QueryLimitEntityManager.set(previous);
+        }
+
+        //then
+        assertThat(members).extracting("age").containsExactly(50, 40, 30);
+    }
+}
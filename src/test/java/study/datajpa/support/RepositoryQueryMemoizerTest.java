@@ -0,0 +1,79 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "datajpa.query-memoization.enabled=true")
+@Transactional
+class RepositoryQueryMemoizerTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    RepositoryQueryMemoizer repositoryQueryMemoizer;
+    @Autowired
+    EntityManager em;
+
+    long hits;
+    long misses;
+
+    @BeforeEach
+    public void setUp() {
+        em.persist(new Member("memo1", 10));
+        em.persist(new Member("memo2", 20));
+        em.flush();
+        em.clear();
+        hits = repositoryQueryMemoizer.getHits();
+        misses = repositoryQueryMemoizer.getMisses();
+    }
+
+    @Test
+    public void sameQueryRunsOnce() throws Exception {
+        //when
+        List<Member> first = memberRepository.findByUsername("memo1");
+        List<Member> second = memberRepository.findByUsername("memo1");
+        memberRepository.findByUsername("memo2");
+
+        //then
+        assertThat(second).containsExactlyElementsOf(first);
+        assertThat(repositoryQueryMemoizer.getHits() - hits).isEqualTo(1);
+        assertThat(repositoryQueryMemoizer.getMisses() - misses).isEqualTo(2);
+    }
+
+    @Test
+    public void invalidatedByFlush() throws Exception {
+        //given
+        assertThat(memberRepository.findByUsername("memo3")).isEmpty();
+
+        //when
+        em.persist(new Member("memo3", 30));
+
+        //then 캐시를 돌려주기 전에 flush 하고, insert 로 결과를 버린다.
+        assertThat(memberRepository.findByUsername("memo3")).hasSize(1);
+        assertThat(repositoryQueryMemoizer.getHits() - hits).isZero();
+        assertThat(repositoryQueryMemoizer.getMisses() - misses).isEqualTo(2);
+    }
+
+    @Test
+    public void invalidatedByClearAndBulkUpdate() throws Exception {
+        memberRepository.findByUsername("memo1");
+        em.clear();
+        memberRepository.findByUsername("memo1");
+        memberRepository.bulkAgePlus(0);
+        List<Member> result = memberRepository.findByUsername("memo1");
+
+        assertThat(result.get(0).getAge()).isEqualTo(11);
+        assertThat(repositoryQueryMemoizer.getHits() - hits).isZero();
+        assertThat(repositoryQueryMemoizer.getMisses() - misses).isEqualTo(3);
+    }
+}
@@ -0,0 +1,88 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.entity.TeamStats;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.repository.TeamStatsRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "datajpa.team-stats.enabled=true")
+@Transactional
+class TeamStatsTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+    @Autowired
+    TeamStatsReconciler teamStatsReconciler;
+    @Autowired
+    EntityManager em;
+
+    private TeamStats stats(Team team) {
+        em.flush();
+        em.clear();
+        return teamStatsRepository.findById(team.getId()).get();
+    }
+
+    @Test
+    public void incrementalStats() throws Exception {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        Member member1 = memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 20, teamA));
+        memberRepository.save(new Member("member3", 30, teamB));
+
+        assertThat(stats(teamA).getMemberCount()).isEqualTo(2);
+        assertThat(stats(teamA).getAverageAge()).isEqualTo(15.0);
+
+        // when
+        Member findMember = memberRepository.findById(member1.getId()).get();
+        findMember.changeTeam(teamRepository.findById(teamB.getId()).get());
+        TeamStats afterChangeTeam = stats(teamB);
+
+        memberRepository.bulkAgePlus(0);
+        TeamStats afterBulk = stats(teamB);
+
+        memberRepository.delete(memberRepository.findById(member1.getId()).get());
+        TeamStats afterDelete = stats(teamB);
+
+        // then
+        assertThat(afterChangeTeam.getMemberCount()).isEqualTo(2);
+        assertThat(afterChangeTeam.getAgeSum()).isEqualTo(40);
+        assertThat(afterBulk.getAgeSum()).isEqualTo(42);
+        assertThat(afterDelete.getMemberCount()).isEqualTo(1);
+        assertThat(afterDelete.getAgeSum()).isEqualTo(31);
+        assertThat(stats(teamA).getMemberCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void reconcile() throws Exception {
+        //given
+        Team team = teamRepository.save(new Team("teamA"));
+        memberRepository.save(new Member("member1", 10, team));
+        memberRepository.save(new Member("member2", 20, team));
+        em.flush();
+        em.createNativeQuery("update team_stats set member_count = 0, age_sum = 0").executeUpdate();
+
+        // when
+        int reconciled = teamStatsReconciler.reconcile();
+
+        // then
+        assertThat(reconciled).isGreaterThanOrEqualTo(1);
+        assertThat(stats(team).getMemberCount()).isEqualTo(2);
+        assertThat(stats(team).getAgeSum()).isEqualTo(30);
+    }
+}